@@ -1,7 +1,10 @@
 package civitas.celestis;
 
 import civitas.celestis.event.lifecycle.EventManager;
+import civitas.celestis.task.lifecycle.EngineClock;
 import civitas.celestis.task.lifecycle.Scheduler;
+import civitas.celestis.task.lifecycle.VirtualClock;
+import civitas.celestis.task.lifecycle.Watchdog;
 import civitas.celestis.world.lifecycle.WorldManager;
 
 import javax.annotation.Nonnull;
@@ -12,9 +15,26 @@ import javax.annotation.Nonnull;
  */
 public final class Odyssey {
     /**
-     * Starts the engine.
+     * Starts the engine using the system clock.
      */
     public static void start() {
+        start(EngineClock.SYSTEM);
+    }
+
+    /**
+     * Starts the engine.
+     * Passing a {@link VirtualClock} runs the engine as a deterministic simulation.
+     * Tasks must then not block on the work of other modules, or virtual time deadlocks;
+     * see {@link VirtualClock} for details.
+     *
+     * @param clock Clock to run the engine with
+     */
+    public static void start(@Nonnull EngineClock clock) {
+        // Set clock before any module starts, so virtual time waits for every module
+        eventManager.setClock(clock);
+        scheduler.setClock(clock);
+        worldManager.setClock(clock);
+
         // Start modules
         eventManager.start();
         scheduler.start();
@@ -68,4 +88,15 @@ public final class Odyssey {
     private static final Scheduler scheduler = new Scheduler();
     private static final EventManager eventManager = new EventManager();
     private static final WorldManager worldManager = new WorldManager();
+
+    static {
+        // Watch the cores of every module, and publish stalls as events
+        final Watchdog watchdog = scheduler.getWatchdog();
+
+        eventManager.attach(watchdog);
+        worldManager.attach(watchdog);
+
+        // Stalls are called from their own thread, so a stalled event manager cannot block the watchdog
+        watchdog.addListener(stall -> Thread.ofVirtual().start(() -> eventManager.call(stall)));
+    }
 }
\ No newline at end of file
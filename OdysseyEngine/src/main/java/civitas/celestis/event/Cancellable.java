@@ -0,0 +1,25 @@
+package civitas.celestis.event;
+
+/**
+ * <h2>Cancellable</h2>
+ * <p>
+ * An event which handlers can cancel, for example to veto the action it announces.
+ * Once an event is cancelled, its remaining handlers are skipped,
+ * except for {@link HandlerPriority#MONITOR} handlers, which always observe the outcome.
+ * </p>
+ */
+public interface Cancellable extends Event {
+    /**
+     * Checks if this event has been cancelled.
+     *
+     * @return {@code true} if this event is cancelled
+     */
+    boolean isCancelled();
+
+    /**
+     * Sets whether this event is cancelled.
+     *
+     * @param cancelled {@code true} to cancel this event
+     */
+    void setCancelled(boolean cancelled);
+}
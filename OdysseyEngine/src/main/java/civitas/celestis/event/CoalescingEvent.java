@@ -0,0 +1,23 @@
+package civitas.celestis.event;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <h2>CoalescingEvent</h2>
+ * <p>
+ * An event of which only the latest value matters, such as a state update.
+ * While an event is waiting to be dispatched, a newer event of the same class and coalescing key replaces it,
+ * so handlers are only called once with the newest event.
+ * The event is dispatched at the position in the queue of the first event it replaced.
+ * </p>
+ */
+public interface CoalescingEvent extends Event {
+    /**
+     * Gets the key identifying which events replace each other.
+     * Keys are compared with {@link Object#equals(Object)}, and only within the same event class.
+     *
+     * @return Coalescing key
+     */
+    @Nonnull
+    Object getCoalescingKey();
+}
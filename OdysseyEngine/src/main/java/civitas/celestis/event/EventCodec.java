@@ -0,0 +1,34 @@
+package civitas.celestis.event;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * <h2>EventCodec</h2>
+ * <p>
+ * Converts events of a single type to and from bytes, so they can be recorded to an event journal.
+ * Buffers are little-endian, and a codec must read back exactly what it has written.
+ * </p>
+ *
+ * @param <E> Type of event
+ */
+public interface EventCodec<E extends Event> {
+    /**
+     * Writes an event to a buffer, starting at its position.
+     * The buffer only covers the space available for the event's record,
+     * and the encoded event ends at the buffer's position once this returns.
+     *
+     * @param event  Event to write
+     * @param buffer Buffer to write to
+     */
+    void encode(@Nonnull E event, @Nonnull ByteBuffer buffer);
+
+    /**
+     * Reads an event from a buffer which holds exactly the bytes written by {@link #encode(Event, ByteBuffer)}.
+     *
+     * @param buffer Buffer to read from
+     * @return Decoded event
+     */
+    @Nonnull
+    E decode(@Nonnull ByteBuffer buffer);
+}
@@ -24,4 +24,13 @@ public @interface EventHandler {
     @Nonnull
     HandlerPriority priority() default HandlerPriority.NORMAL;
 
+    /**
+     * Checks if this event handler runs asynchronously.
+     * Asynchronous handlers are started on the event manager's workers once their priority tier is reached,
+     * and later tiers do not wait for them to finish.
+     *
+     * @return {@code true} if this handler is asynchronous
+     */
+    boolean async() default false;
+
 }
@@ -0,0 +1,127 @@
+package civitas.celestis.event;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <h2>EventPool</h2>
+ * <p>
+ * A pool of reusable events of a single type.
+ * Released events are kept in a bounded, array-backed free list, so neither acquiring nor releasing allocates.
+ * When the free list is empty, a new event is created; when it is full, released events are discarded.
+ * </p>
+ * <p>
+ * The free list is first-in first-out, so a released event is reused as late as possible.
+ * In debug mode, released events are never reused, and {@link PooledEvent#checkAlive()} and
+ * {@link PooledEvent#release()} report where an event was released when it is used or released afterwards.
+ * Outside debug mode, a stale reference to an event which has been reused cannot be detected.
+ * </p>
+ *
+ * @param <E> Type of event
+ */
+public final class EventPool<E extends PooledEvent> {
+    /**
+     * Creates a new event pool.
+     *
+     * @param factory  Supplier creating new events
+     * @param capacity Maximum number of released events kept for reuse
+     * @throws IllegalArgumentException When the capacity is not positive
+     */
+    public EventPool(@Nonnull Supplier<E> factory, @Nonnegative int capacity) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+
+        this.factory = factory;
+        this.free = new ArrayBlockingQueue<>(capacity);
+        this.created = new LongAdder();
+        this.reused = new LongAdder();
+    }
+
+    /**
+     * Acquires an event from this pool, creating one if none is free.
+     * The caller holds the only reference to the returned event.
+     *
+     * @return Event
+     */
+    @Nonnull
+    public E acquire() {
+        E event = free.poll();
+
+        if (event == null) {
+            event = factory.get();
+            created.increment();
+        } else {
+            reused.increment();
+        }
+
+        event.acquired(this);
+        return event;
+    }
+
+    /**
+     * Returns a released event to this pool.
+     * In debug mode, the event is quarantined instead, so it stays released for anyone still holding it.
+     *
+     * @param event Released event
+     */
+    @SuppressWarnings("unchecked")
+    void recycle(@Nonnull PooledEvent event) {
+        if (debug) return;
+        free.offer((E) event);
+    }
+
+    /**
+     * Checks if this pool is in debug mode.
+     *
+     * @return {@code true} if use-after-release is detected
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * Sets whether this pool detects events being used after they have been released.
+     * This records a stack trace per release, and never reuses released events, since a reused event
+     * would look alive to a stale holder. It should therefore only be enabled while debugging.
+     *
+     * @param debug {@code true} to detect use-after-release
+     */
+    public void setDebug(boolean debug) {
+        this.debug = debug;
+    }
+
+    /**
+     * Gets the number of events created by this pool.
+     *
+     * @return Number of created events
+     */
+    @Nonnegative
+    public long getCreated() {
+        return created.sum();
+    }
+
+    /**
+     * Gets the number of times a released event was reused.
+     *
+     * @return Number of reused events
+     */
+    @Nonnegative
+    public long getReused() {
+        return reused.sum();
+    }
+
+    @Nonnull
+    private final Supplier<E> factory;
+    @Nonnull
+    private final Queue<E> free;
+    @Nonnull
+    private final LongAdder created;
+    @Nonnull
+    private final LongAdder reused;
+    private volatile boolean debug = false;
+}
@@ -0,0 +1,33 @@
+package civitas.celestis.event;
+
+/**
+ * <h2>OverflowPolicy</h2>
+ * <p>Determines what an event manager does with an event which is called while its queue is full.</p>
+ */
+public enum OverflowPolicy {
+    /**
+     * The caller waits until the queue has room.
+     * Nothing is lost, but a slow handler slows down every thread which calls events.
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued event is dropped to make room for the new event.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new event is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The new event is held outside the queue, replacing any held event of the same class,
+     * so only the latest event of each class is kept until the queue has been drained.
+     * Held events are dispatched in the order their classes were first held.
+     * While an event of a class is held, later events of the class are held as well, even if the queue has room,
+     * so an older event is never dispatched after a newer one of the same class.
+     * Events whose caller waits for their outcome cannot be replaced, so they are dropped instead.
+     */
+    COALESCE
+}
@@ -0,0 +1,103 @@
+package civitas.celestis.event;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>PooledEvent</h2>
+ * <p>
+ * An event which is borrowed from an {@link EventPool} instead of being allocated for each call.
+ * Pooled events are reference counted. Acquiring an event from its pool gives the caller one reference,
+ * and the event returns to its pool once every reference has been released.
+ * </p>
+ * <p>
+ * An event manager takes over the caller's reference when the event is called, and releases it
+ * after the last handler has run, including asynchronous handlers.
+ * A handler which keeps using the event afterwards must {@link #retain() retain} it, and release it when done.
+ * </p>
+ * <p>
+ * Accessors of subclasses should call {@link #checkAlive()}, so that a pool in debug mode
+ * can detect an event being used after it has been released.
+ * </p>
+ */
+public abstract class PooledEvent implements Event {
+    /**
+     * Clears the state of this event before it is returned to its pool.
+     */
+    protected abstract void reset();
+
+    /**
+     * Adds a reference to this event, keeping it from being returned to its pool.
+     *
+     * @throws IllegalStateException When this event has already been released
+     */
+    public final void retain() throws IllegalStateException {
+        if (references.getAndIncrement() <= 0) {
+            references.decrementAndGet();
+            throw new IllegalStateException("Cannot retain an event which has been released.", releasedAt);
+        }
+    }
+
+    /**
+     * Releases a reference to this event. The event is returned to its pool once every reference has been released.
+     * Events which were not acquired from a pool are left to the garbage collector.
+     *
+     * @throws IllegalStateException When this event has already been released
+     */
+    public final void release() throws IllegalStateException {
+        final int remaining = references.decrementAndGet();
+
+        if (remaining < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Event has already been released.", releasedAt);
+        }
+
+        if (remaining > 0 || pool == null) return;
+
+        if (pool.isDebug()) releasedAt = new Throwable("Released here");
+        reset();
+        pool.recycle(this);
+    }
+
+    /**
+     * Gets the number of references to this event.
+     *
+     * @return Number of references
+     */
+    @Nonnegative
+    public final int getReferences() {
+        return Math.max(references.get(), 0);
+    }
+
+    /**
+     * Checks that this event has not been released.
+     * This only checks events acquired from a pool in debug mode, and costs nothing otherwise.
+     *
+     * @throws IllegalStateException When this event has been released
+     */
+    public final void checkAlive() throws IllegalStateException {
+        if (pool != null && pool.isDebug() && references.get() <= 0) {
+            throw new IllegalStateException("Event is used after being released.", releasedAt);
+        }
+    }
+
+    /**
+     * Prepares this event to be handed out by a pool, with a single reference.
+     *
+     * @param pool Pool the event belongs to
+     */
+    final void acquired(@Nonnull EventPool<?> pool) {
+        this.pool = pool;
+        this.releasedAt = null;
+        references.set(1);
+    }
+
+    @Nonnull
+    private final AtomicInteger references = new AtomicInteger(1);
+    @Nullable
+    private volatile EventPool<?> pool = null;
+    @Nullable
+    private volatile Throwable releasedAt = null;
+}
@@ -0,0 +1,17 @@
+package civitas.celestis.event;
+
+/**
+ * <h2>ReplaySpeed</h2>
+ * <p>Determines how fast recorded events are called when an event journal is replayed.</p>
+ */
+public enum ReplaySpeed {
+    /**
+     * Events are called with the same spacing as when they were recorded.
+     */
+    ORIGINAL,
+
+    /**
+     * Events are called as fast as they can be read.
+     */
+    MAXIMUM
+}
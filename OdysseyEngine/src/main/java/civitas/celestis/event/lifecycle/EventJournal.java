@@ -0,0 +1,438 @@
+package civitas.celestis.event.lifecycle;
+
+import civitas.celestis.event.Event;
+import civitas.celestis.event.EventCodec;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * <h2>EventJournal</h2>
+ * <p>
+ * A binary log of the events dispatched by an {@link EventManager}, used to capture and replay an event stream.
+ * Events are written into memory-mapped segment files of a fixed size, and a new segment is started
+ * whenever the current one is full, so recording an event is a copy into memory without a system call.
+ * The next segment is mapped ahead of time and full segments are forced to storage on a background thread,
+ * so starting a segment does not stall dispatch either. Durability of the current segment is left
+ * to {@link #flush()} and {@link #close()}.
+ * </p>
+ * <p>
+ * Only event classes with a registered {@link EventCodec} are recorded. Each record holds the codec's id,
+ * the time the event was dispatched according to the manager's clock, and the encoded event.
+ * Events of other classes, and events too large for a segment, are skipped.
+ * Recording only locks the journal while a record is appended, so events without a codec
+ * are skipped without any contention between the manager's shards.
+ * </p>
+ * <p>
+ * Segments are created lazily in the journal's directory, numbered after any segments already there,
+ * so a journal opened only to be replayed never writes. I/O errors stop the journal from recording,
+ * and are rethrown by {@link #flush()} and {@link #close()} instead of interrupting dispatch.
+ * </p>
+ */
+public final class EventJournal implements AutoCloseable {
+    /**
+     * Creates a new event journal.
+     *
+     * @param directory   Directory to keep segment files in, created if it does not exist
+     * @param segmentSize Size of each segment file in bytes
+     * @throws IOException              When the directory cannot be created
+     * @throws IllegalArgumentException When the segment size is not in the range of {@code [64, 2^31 - 1]}
+     */
+    public EventJournal(@Nonnull Path directory, @Nonnegative long segmentSize)
+            throws IOException, IllegalArgumentException {
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be in the range of [64, 2^31 - 1].");
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Registers a codec, so that events of its class are recorded and can be replayed.
+     * Ids are written to the journal, and must stay the same for the journal to be replayed later.
+     *
+     * @param id    Id of the codec
+     * @param type  Class of event the codec converts
+     * @param codec Codec to register
+     * @param <E>   Type of event
+     * @throws IllegalArgumentException When the id or class already has a codec
+     */
+    public synchronized <E extends Event> void register(int id, @Nonnull Class<E> type, @Nonnull EventCodec<E> codec)
+            throws IllegalArgumentException {
+        if (byId.containsKey(id) || byType.containsKey(type)) {
+            throw new IllegalArgumentException("A codec is already registered for this id or event class.");
+        }
+
+        final Codec entry = new Codec(id, codec);
+        byId.put(id, entry);
+        byType.put(type, entry);
+    }
+
+    /**
+     * Gets the directory of this journal.
+     *
+     * @return Directory of segment files
+     */
+    @Nonnull
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the number of events recorded to this journal.
+     *
+     * @return Number of recorded events
+     */
+    @Nonnegative
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    /**
+     * Gets the number of dispatched events which were not recorded,
+     * either because their class has no codec, or because they could not be encoded.
+     *
+     * @return Number of skipped events
+     */
+    @Nonnegative
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Forces every recorded event to be written to storage.
+     * This waits for previous segments to be forced in the background, then forces the current segment,
+     * without keeping events from being recorded meanwhile.
+     *
+     * @throws IOException When the journal has failed to write a segment
+     */
+    public void flush() throws IOException {
+        if (!background.isShutdown()) {
+            try {
+                CompletableFuture.runAsync(() -> {}, background).join();
+            } catch (RejectedExecutionException e) {
+                // Closed concurrently, which has already waited for the background work
+            }
+        }
+
+        final MappedByteBuffer current;
+
+        synchronized (this) {
+            current = segment;
+        }
+
+        if (current != null) current.force();
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Flushes this journal, and stops it from recording further events.
+     * A segment which was prepared in advance but never written to is deleted.
+     *
+     * @throws IOException When the journal has failed to write a segment
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (background.isShutdown()) {
+            if (failure != null) throw failure;
+            return;
+        }
+
+        closed = true;
+        flush();
+        background.shutdown();
+
+        if (next == null) return;
+
+        try {
+            next.join();
+            Files.deleteIfExists(directory.resolve(String.format(SEGMENT_NAME, index - 1)));
+        } catch (CompletionException | IOException e) {
+            // The segment failed to be prepared, or cannot be deleted while mapped, and is left empty
+        }
+    }
+
+    /**
+     * Records an event. Events which cannot be recorded are counted as skipped.
+     *
+     * @param event     Event to record
+     * @param timestamp Time the event was dispatched, in nanoseconds
+     */
+    void record(@Nonnull Event event, long timestamp) {
+        if (closed) return;
+
+        final Codec codec = byType.get(event.getClass());
+        if (codec == null) {
+            skipped.increment();
+            return;
+        }
+
+        // Only appending is serialized, so shards dispatching events without a codec never wait on each other
+        synchronized (this) {
+            if (closed) return;
+
+            try {
+                if (segment == null || segment.remaining() < RECORD_HEADER) roll();
+                if (write(codec, event, timestamp)) return;
+
+                // Retry once in a new segment, unless the event did not even fit into an empty one
+                if (segment.position() > SEGMENT_HEADER) {
+                    roll();
+                    if (write(codec, event, timestamp)) return;
+                }
+            } catch (IOException e) {
+                failure = e;
+                closed = true;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        skipped.increment();
+    }
+
+    /**
+     * Writes a record to the current segment. The size of a record is written last,
+     * so a reader never sees a record which has only been partially written.
+     * The codec is given a slice of the space left in the segment after the record's header,
+     * so it can neither overwrite other records nor move the segment's position.
+     *
+     * @param codec     Codec of the event
+     * @param event     Event to write
+     * @param timestamp Time the event was dispatched, in nanoseconds
+     * @return {@code true} if the record was written, {@code false} if the segment is full
+     */
+    private boolean write(@Nonnull Codec codec, @Nonnull Event event, long timestamp) {
+        final MappedByteBuffer s = segment;
+        final int start = s.position();
+
+        // The segment has no room for the header, so end it here
+        if (s.limit() - start < RECORD_HEADER) return false;
+
+        final ByteBuffer body = s.slice(start + RECORD_HEADER, s.limit() - start - RECORD_HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            codec.encode(event, body);
+        } catch (BufferOverflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // The segment has no room for the event, so end it here
+            s.putInt(start, 0);
+            return false;
+        } catch (RuntimeException e) {
+            s.putInt(start, 0);
+            throw e;
+        }
+
+        final int size = RECORD_HEADER + body.position();
+
+        s.putInt(start + 4, codec.id()).putLong(start + 8, timestamp).putInt(start, size).position(start + size);
+        recorded.increment();
+        return true;
+    }
+
+    /**
+     * Starts a new segment. The new segment has usually been mapped in advance, and the current one
+     * is forced to storage in the background, so rolling does not wait for the file system.
+     *
+     * @throws IOException When the segment cannot be created
+     */
+    private void roll() throws IOException {
+        if (index < 0) index = nextIndex(getSegments());
+
+        final MappedByteBuffer previous = segment;
+
+        if (next == null) {
+            segment = map(index++);
+        } else {
+            try {
+                segment = next.join();
+            } catch (CompletionException e) {
+                next = null;
+                throw e.getCause() instanceof UncheckedIOException u ? u.getCause() : new IOException(e.getCause());
+            }
+        }
+
+        // Map the following segment ahead of time
+        final long following = index++;
+        next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return map(following);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, background);
+
+        if (previous != null) background.execute(() -> force(previous));
+    }
+
+    /**
+     * Creates and maps a segment, and writes its header.
+     *
+     * @param index Index of the segment
+     * @return Mapped segment, positioned after its header
+     * @throws IOException When the segment cannot be created
+     */
+    @Nonnull
+    private MappedByteBuffer map(long index) throws IOException {
+        final Path path = directory.resolve(String.format(SEGMENT_NAME, index));
+        final MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC).putInt(VERSION);
+        return buffer;
+    }
+
+    /**
+     * Forces a retired segment to storage on the background thread.
+     * A failure stops the journal from recording, and is rethrown by {@link #flush()}.
+     *
+     * @param retired Segment to force
+     */
+    private void force(@Nonnull MappedByteBuffer retired) {
+        try {
+            retired.force();
+        } catch (UncheckedIOException e) {
+            failure = e.getCause();
+            closed = true;
+        }
+    }
+
+    /**
+     * Gets the segment files of this journal, in the order they were written.
+     *
+     * @return List of segment files
+     * @throws IOException When the directory cannot be listed
+     */
+    @Nonnull
+    List<Path> getSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().matches(SEGMENT_PATTERN))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    /**
+     * Decodes the event of a record.
+     *
+     * @param id     Id of the record's codec
+     * @param buffer Buffer holding the encoded event
+     * @return Decoded event, or {@code null} if no codec is registered for the id
+     */
+    @Nullable
+    Event decode(int id, @Nonnull ByteBuffer buffer) {
+        final Codec codec = byId.get(id);
+        return codec != null ? codec.codec().decode(buffer) : null;
+    }
+
+    /**
+     * Gets the index following the last existing segment.
+     *
+     * @param segments Existing segment files
+     * @return Index of the next segment
+     */
+    private static long nextIndex(@Nonnull List<Path> segments) {
+        if (segments.isEmpty()) return 0;
+
+        final String name = segments.get(segments.size() - 1).getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.'))) + 1;
+    }
+
+    /**
+     * The identifier at the start of every segment.
+     */
+    static final int MAGIC = 0x4F444A4C;
+
+    /**
+     * The version of the segment format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of a segment's header, holding its identifier and version.
+     */
+    static final int SEGMENT_HEADER = 8;
+
+    /**
+     * The size of a record's header, holding its size, codec id and timestamp.
+     * A size of {@code 0} marks the end of a segment.
+     */
+    static final int RECORD_HEADER = 16;
+
+    private static final long MIN_SEGMENT_SIZE = 64;
+    private static final String SEGMENT_NAME = "segment-%016d.journal";
+    private static final String SEGMENT_PATTERN = "segment-\\d{16}\\.journal";
+
+    @Nonnull
+    private final Path directory;
+    private final long segmentSize;
+    @Nonnull
+    private final Map<Integer, Codec> byId = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Map<Class<?>, Codec> byType = new ConcurrentHashMap<>();
+    @Nonnull
+    private final LongAdder recorded = new LongAdder();
+    @Nonnull
+    private final LongAdder skipped = new LongAdder();
+    @Nonnull
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "EventJournal");
+        t.setDaemon(true);
+        return t;
+    });
+    @Nullable
+    private MappedByteBuffer segment = null;
+    @Nullable
+    private CompletableFuture<MappedByteBuffer> next = null;
+    private long index = -1;
+    @Nullable
+    private volatile IOException failure = null;
+    private volatile boolean closed = false;
+
+    /**
+     * A registered codec.
+     *
+     * @param id    Id written to the journal
+     * @param codec Codec of the event class
+     */
+    private record Codec(int id, @Nonnull EventCodec<?> codec) {
+        /**
+         * Encodes an event with this codec.
+         *
+         * @param event  Event to encode
+         * @param buffer Buffer to write to
+         */
+        @SuppressWarnings("unchecked")
+        private void encode(@Nonnull Event event, @Nonnull ByteBuffer buffer) {
+            ((EventCodec<Event>) codec).encode(event, buffer);
+        }
+    }
+}
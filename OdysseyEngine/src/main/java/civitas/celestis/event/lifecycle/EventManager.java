@@ -1,59 +1,512 @@
 package civitas.celestis.event.lifecycle;
 
+import civitas.celestis.event.Cancellable;
+import civitas.celestis.event.CoalescingEvent;
 import civitas.celestis.event.Event;
 import civitas.celestis.event.EventHandler;
+import civitas.celestis.event.EventPool;
+import civitas.celestis.event.HandlerPriority;
 import civitas.celestis.event.Listener;
+import civitas.celestis.event.OverflowPolicy;
+import civitas.celestis.event.PooledEvent;
+import civitas.celestis.task.lifecycle.EngineClock;
 import civitas.celestis.task.lifecycle.SchedulerCore;
+import civitas.celestis.task.lifecycle.Watchdog;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
-import java.lang.reflect.InvocationTargetException;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 /**
  * <h2>EventManager</h2>
  * <p>Manages the lifecycle of events.</p>
+ * <p>
+ * Handler methods are discovered once, when their listener is registered, and invoked through method handles.
+ * For each class of event, the handlers which accept it, including handlers of its superclasses and interfaces,
+ * are resolved into a dispatch table sorted by priority. Tables are cached until a listener is registered
+ * or unregistered, so dispatching an event only walks an array.
+ * </p>
+ * <p>
+ * Events can be called from any thread. They are queued in a lock-free ring buffer, and dispatched
+ * in order on the manager's own thread. The queue is bounded, and events called while it is full
+ * are handled according to its {@link OverflowPolicy}.
+ * {@link CoalescingEvent Coalescing events} only take up one place in the queue per key,
+ * however many times they are called before being dispatched.
+ * </p>
+ * <p>
+ * A manager can be split into several dispatch shards, each with its own queue and thread, so that
+ * unrelated event traffic does not contend for a single thread. Each class of event is dispatched on one shard,
+ * chosen by the hash of its name or {@link #assignShard(Class, int) assigned} explicitly, so events of the same
+ * class are still dispatched in the order they were called. Events of different classes on different shards
+ * are dispatched concurrently and in no particular order relative to each other.
+ * Under the {@link OverflowPolicy#BLOCK blocking} policy, handlers on two shards which call events into each other's
+ * full queues wait on each other, so such traffic should be kept on one shard.
+ * </p>
+ * <p>
+ * {@link EventHandler#async() Asynchronous} handlers are started on the manager's workers without being waited for.
+ * When {@link #setParallel(boolean) parallel} dispatch is enabled, the handlers of each priority tier
+ * also run in parallel on the workers, while tiers still run in order.
+ * </p>
+ * <p>
+ * Under the {@link OverflowPolicy#BLOCK blocking} policy, a handler which calls an event into its own shard's
+ * full queue cannot wait for the dispatcher, which is running or waiting for that handler. The event is set aside
+ * instead, and queued in order once the dispatcher has made room, so handlers never run inside one another.
+ * </p>
+ * <p>
+ * Callers which need the outcome of an event can dispatch it inline with {@link #callNow(Event)},
+ * or wait for it with {@link #callAsync(Event)}. Cancelling a {@link Cancellable} event skips its
+ * remaining handlers, except for {@link HandlerPriority#MONITOR} handlers. Registering or unregistering a listener publishes a new immutable
+ * snapshot of the handlers, so dispatch never observes a listener which is partially registered.
+ * </p>
+ * <p>
+ * {@link PooledEvent Pooled events} called through {@link #call(Event)} are returned to their pool
+ * after their last handler, so high-volume events can be dispatched without allocating.
+ * </p>
+ * <p>
+ * Dispatched events can be captured by an {@link EventJournal}, and later fed back into a manager
+ * with an {@link EventReplay}.
+ * </p>
  */
 public class EventManager {
     /**
      * Starts processing events.
      */
     public void start() {
-        core.start();
+        for (Shard shard : shards) shard.core.start();
     }
 
     /**
      * Stops processing events.
      */
     public void stop() {
-        core.stop();
+        for (Shard shard : shards) shard.core.stop();
+    }
+
+    /**
+     * Sets the clock of this event manager.
+     *
+     * @param clock Clock to use
+     * @throws IllegalStateException When this event manager has already been started
+     */
+    public void setClock(@Nonnull EngineClock clock) throws IllegalStateException {
+        for (Shard shard : shards) shard.core.setClock(clock);
+    }
+
+    /**
+     * Attaches a watchdog to the cores of this event manager, so that stalled handlers are detected.
+     *
+     * @param watchdog Watchdog to attach
+     */
+    public void attach(@Nonnull Watchdog watchdog) {
+        for (Shard shard : shards) watchdog.watch(shard.core);
+    }
+
+    /**
+     * Gets the number of dispatch shards of this event manager.
+     *
+     * @return Number of shards
+     */
+    @Nonnegative
+    public int getShards() {
+        return shards.length;
+    }
+
+    /**
+     * Gets the shard which events of a class are dispatched on.
+     *
+     * @param type Class of event
+     * @return Index of the shard
+     */
+    @Nonnegative
+    public int getShard(@Nonnull Class<? extends Event> type) {
+        final Integer shard = assignments.get(type);
+        return shard != null ? shard : Math.floorMod(type.getName().hashCode(), shards.length);
+    }
+
+    /**
+     * Assigns a class of event to a shard, overriding the shard chosen by the hash of its name.
+     * Events of the class which are queued on the previous shard when it is reassigned may be dispatched
+     * out of order with later events, so classes should be assigned before their events are called.
+     *
+     * @param type  Class of event
+     * @param shard Index of the shard
+     * @throws IllegalArgumentException When the shard index is out of range
+     */
+    public void assignShard(@Nonnull Class<? extends Event> type, @Nonnegative int shard)
+            throws IllegalArgumentException {
+        if (shard < 0 || shard >= shards.length) {
+            throw new IllegalArgumentException("Shard index must be in the range of [0, " + shards.length + ").");
+        }
+
+        assignments.put(type, shard);
+    }
+
+    /**
+     * Gets the policy followed when an event is called while the queue is full.
+     *
+     * @return {@link OverflowPolicy}
+     */
+    @Nonnull
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets the policy followed when an event is called while the queue is full.
+     *
+     * @param overflowPolicy Overflow policy
+     */
+    public void setOverflowPolicy(@Nonnull OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Gets the executor which runs asynchronous handlers, and parallel handlers when enabled.
+     *
+     * @return Worker executor
+     */
+    @Nonnull
+    public Executor getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Sets the executor which runs asynchronous handlers, and parallel handlers when enabled.
+     *
+     * @param workers Worker executor
+     */
+    public void setWorkers(@Nonnull Executor workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Checks if the handlers of each priority tier are run in parallel.
+     *
+     * @return {@code true} if handlers are run in parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Sets whether the handlers of each priority tier are run in parallel on the workers.
+     * Tiers are still run in order of priority, and each tier starts once the previous tier's
+     * synchronous handlers have finished. Handlers of the same tier must then be safe to run concurrently.
+     *
+     * @param parallel {@code true} to run handlers in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Gets the journal which dispatched events are recorded to.
+     *
+     * @return Journal, or {@code null} if events are not recorded
+     */
+    @Nullable
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the journal which dispatched events are recorded to.
+     * Events are recorded in the order they are dispatched, just before their first handler is called.
+     *
+     * @param journal Journal to record to, or {@code null} to stop recording
+     */
+    public void setJournal(@Nullable EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the pool of an event type, creating it if it does not exist.
+     *
+     * @param type    Class of event
+     * @param factory Supplier creating new events, used if the pool does not exist
+     * @param <E>     Type of event
+     * @return {@link EventPool}
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <E extends PooledEvent> EventPool<E> getPool(@Nonnull Class<E> type, @Nonnull Supplier<E> factory) {
+        return (EventPool<E>) pools.computeIfAbsent(type, t -> new EventPool<>(factory, DEFAULT_POOL_CAPACITY));
+    }
+
+    /**
+     * Gets the metrics of the event queues, combined across every shard.
+     *
+     * @return {@link QueueMetrics}
+     */
+    @Nonnull
+    public QueueMetrics getQueueMetrics() {
+        return metrics;
     }
 
     /**
      * Calls an event to be handled.
+     * If the queue is full, the event is handled according to the {@link #getOverflowPolicy() overflow policy}.
+     * The caller's reference to a {@link PooledEvent} is released once the event has been handled or dropped.
      *
      * @param event Event to call
      * @param <E>   Type of event to call
+     * @throws IllegalStateException When a pooled event in debug mode has already been released
      */
-    public <E extends Event> void call(@Nonnull E event) {
-        eventQueue.add(event);
+    public <E extends Event> void call(@Nonnull E event) throws IllegalStateException {
+        if (event instanceof PooledEvent p) p.checkAlive();
+        metrics.countCalled();
+
+        if (event instanceof CoalescingEvent c) {
+            final Slot slot = new Slot(event.getClass(), c.getCoalescingKey());
+            final Event previous = pending.put(slot, event);
+
+            if (previous != null) {
+                release(previous);
+                metrics.countSuperseded();
+                return;
+            }
+
+            // Only the first pending event of a key is queued, as a slot which resolves to the latest event
+            enqueue(slot);
+            return;
+        }
+
+        enqueue(event);
+    }
+
+    /**
+     * Dispatches an event immediately on the calling thread, bypassing the queue.
+     * This may run concurrently with events dispatched by the manager's thread.
+     * The caller keeps its reference to a {@link PooledEvent}, and must release it after reading the outcome.
+     *
+     * @param event Event to dispatch
+     * @param <E>   Type of event
+     * @return The event, once every synchronous handler has run
+     */
+    @Nonnull
+    public <E extends Event> E callNow(@Nonnull E event) {
+        dispatch(event);
+        return event;
+    }
+
+    /**
+     * Calls an event to be handled, and returns a future of its outcome.
+     * The event is queued in order with other events, but is never coalesced.
+     * The caller keeps its reference to a {@link PooledEvent}, and must release it after reading the outcome.
+     *
+     * @param event Event to call
+     * @param <E>   Type of event
+     * @return Future which completes with the event once every synchronous handler has run,
+     * or exceptionally if the event was dropped by the overflow policy
+     */
+    @Nonnull
+    public <E extends Event> CompletableFuture<E> callAsync(@Nonnull E event) {
+        final CompletableFuture<E> future = new CompletableFuture<>();
+
+        metrics.countCalled();
+        enqueue(new Call<>(event, future));
+
+        return future;
+    }
+
+    /**
+     * Adds an event or slot to the queue of its shard, following the overflow policy if the queue is full.
+     *
+     * @param event Event or slot to add
+     */
+    private void enqueue(@Nonnull Event event) {
+        final Class<?> type = event instanceof Slot slot ? slot.type()
+                : event instanceof Call<?> call ? call.event().getClass() : event.getClass();
+
+        final Shard shard = shards.length == 1 ? shards[0] : shards[getShard(type.asSubclass(Event.class))];
+        final EventQueue eventQueue = shard.queue;
+
+        // While events of a class are held back, later events of the class are held too, so they stay in order
+        final boolean behind = overflowPolicy == OverflowPolicy.COALESCE && shard.isHolding(type);
+
+        // Handlers run by the dispatcher, or waited on by it, cannot wait for it to make room in its queue
+        final boolean dispatching = Thread.currentThread() == shard.dispatcher || TIER.get() == shard;
+
+        // Once such a handler has spilled an event, its later events must queue behind it
+        final boolean spilled = dispatching && !shard.spill.isEmpty();
+
+        if (!behind && !spilled && eventQueue.offer(event)) return;
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                metrics.countBlocked();
+
+                // Dispatching the head here would run handlers inside the calling handler, so set the event aside
+                if (dispatching) {
+                    shard.spill.add(event);
+                    return;
+                }
+
+                while (!eventQueue.offer(event)) LockSupport.parkNanos(FULL_BACKOFF);
+            }
+            case DROP_OLDEST -> {
+                do {
+                    final Event head = eventQueue.poll();
+                    if (head == null) continue;
+
+                    discard(head);
+                    metrics.countDroppedOldest();
+                } while (!eventQueue.offer(event));
+            }
+            case DROP_NEWEST -> {
+                discard(event);
+                metrics.countDroppedNewest();
+            }
+            case COALESCE -> {
+                // Calls cannot be replaced, and holding every one of them would be unbounded, so they are dropped
+                if (event instanceof Call<?>) {
+                    discard(event);
+                    metrics.countDroppedNewest();
+                    return;
+                }
+
+                // Slots already hold the latest value, so they are held by themselves
+                final boolean distinct = event instanceof Slot;
+                final Event previous;
+
+                synchronized (shard.held) {
+                    previous = shard.held.put(distinct ? event : type, event);
+                    shard.heldTypes.add(type);
+                    shard.holding = true;
+                }
+
+                if (previous != null && !distinct) {
+                    release(previous);
+                    metrics.countCoalesced();
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards an event or slot which was dropped from the queue.
+     *
+     * @param event Dropped event or slot
+     */
+    private void discard(@Nonnull Event event) {
+        if (event instanceof Slot slot) {
+            final Event latest = pending.remove(slot);
+            if (latest != null) release(latest);
+        } else if (event instanceof Call<?> call) {
+            call.future().completeExceptionally(new RejectedExecutionException("Event was dropped."));
+        } else {
+            release(event);
+        }
+    }
+
+    /**
+     * Releases the manager's reference to an event if it is pooled.
+     * An event which has already been released, for example because it was called twice, is reported
+     * instead of failing, so that the dispatcher keeps running.
+     *
+     * @param event Event to release
+     */
+    private static void release(@Nonnull Event event) {
+        if (!(event instanceof PooledEvent p)) return;
+
+        try {
+            p.release();
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Dispatches an event taken from the queue, resolving slots to their latest pending event.
+     *
+     * @param event Event or slot taken from the queue
+     */
+    private void process(@Nonnull Event event) {
+        if (event instanceof Slot slot) {
+            final Event latest = pending.remove(slot);
+            if (latest == null) return;
+
+            metrics.countDispatched();
+            dispatch(latest);
+            release(latest);
+            return;
+        }
+
+        metrics.countDispatched();
+
+        if (event instanceof Call<?> call) {
+            call.run(this);
+            return;
+        }
+
+        dispatch(event);
+        release(event);
     }
 
     /**
      * Registers a listener to this event manager.
      *
      * @param listener Listener to register
+     * @throws IllegalArgumentException When a handler method of the listener is invalid or inaccessible
      */
-    public void registerListener(@Nonnull Listener listener) {
-        listeners.add(listener);
+    public void registerListener(@Nonnull Listener listener) throws IllegalArgumentException {
+        final List<Handler> discovered = new ArrayList<>();
+
+        for (Method m : listener.getClass().getDeclaredMethods()) {
+            final EventHandler annotation = m.getAnnotation(EventHandler.class);
+            if (annotation == null) continue;
+
+            if (m.getParameterCount() != 1 || !Event.class.isAssignableFrom(m.getParameterTypes()[0])) {
+                throw new IllegalArgumentException("Handler method " + m + " must have only one event parameter.");
+            }
+
+            try {
+                m.setAccessible(true);
+
+                final MethodHandle handle = MethodHandles.lookup().unreflect(m)
+                        .bindTo(listener)
+                        .asType(MethodType.methodType(void.class, Event.class));
+
+                discovered.add(new Handler(
+                        listener,
+                        m.getParameterTypes()[0],
+                        annotation.priority(),
+                        handle,
+                        annotation.async()
+                ));
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("Handler method " + m + " is not accessible.", e);
+            }
+        }
+
+        synchronized (this) {
+            final List<Handler> handlers = new ArrayList<>(registry.handlers());
+            handlers.addAll(discovered);
+            registry = new Registry(List.copyOf(handlers));
+        }
     }
 
     /**
      * Registers multiple listeners to this event manager.
      *
      * @param listeners Listeners to register
+     * @throws IllegalArgumentException When a handler method of a listener is invalid or inaccessible
      */
-    public void registerListeners(@Nonnull Listener... listeners) {
+    public void registerListeners(@Nonnull Listener... listeners) throws IllegalArgumentException {
         Arrays.stream(listeners).forEach(this::registerListener);
     }
 
@@ -61,8 +514,9 @@ public class EventManager {
      * Registers multiple listeners to this event manager.
      *
      * @param listeners Collection of listeners to register
+     * @throws IllegalArgumentException When a handler method of a listener is invalid or inaccessible
      */
-    public void registerListeners(@Nonnull Collection<Listener> listeners) {
+    public void registerListeners(@Nonnull Collection<Listener> listeners) throws IllegalArgumentException {
         listeners.forEach(this::registerListener);
     }
 
@@ -71,8 +525,9 @@ public class EventManager {
      *
      * @param listener Listener to unregister
      */
-    public void unregisterListener(@Nonnull Listener listener) {
-        listeners.remove(listener);
+    public synchronized void unregisterListener(@Nonnull Listener listener) {
+        final List<Handler> handlers = new ArrayList<>(registry.handlers());
+        if (handlers.removeIf(h -> h.listener() == listener)) registry = new Registry(List.copyOf(handlers));
     }
 
     /**
@@ -93,53 +548,459 @@ public class EventManager {
         listeners.forEach(this::unregisterListener);
     }
 
+    /**
+     * Dispatches an event to every handler which accepts it, in order of priority.
+     *
+     * @param event Event to dispatch
+     */
+    private void dispatch(@Nonnull Event event) {
+        final EventJournal j = journal;
+        if (j != null) j.record(event, shards[0].core.getClock().nanoTime());
+
+        final Table table = getTable(event.getClass());
+
+        if (parallel) {
+            dispatchParallel(table, event);
+            return;
+        }
+
+        final Cancellable cancellable = event instanceof Cancellable c ? c : null;
+
+        for (Handler h : table.handlers()) {
+            if (cancellable != null && cancellable.isCancelled() && h.priority() != HandlerPriority.MONITOR) continue;
+
+            if (h.async()) {
+                invokeAsync(h, event);
+            } else {
+                invoke(h, event);
+            }
+        }
+    }
+
+    /**
+     * Dispatches an event tier by tier, running the handlers of each tier in parallel.
+     * One handler of each tier runs on the calling thread, and the next tier starts once the tier's
+     * synchronous handlers have all finished.
+     *
+     * @param table Dispatch table of the event
+     * @param event Event to dispatch
+     */
+    private void dispatchParallel(@Nonnull Table table, @Nonnull Event event) {
+        final Handler[] handlers = table.handlers();
+        final int[] tiers = table.tiers();
+        final Shard current = currentShard();
+        final Shard owner = current != null ? current : TIER.get();
+
+        final Cancellable cancellable = event instanceof Cancellable c ? c : null;
+
+        for (int t = 0; t + 1 < tiers.length; t++) {
+            if (cancellable != null && cancellable.isCancelled()
+                    && handlers[tiers[t]].priority() != HandlerPriority.MONITOR) continue;
+
+            final int synchronous = table.synchronous()[t];
+            final CountDownLatch latch = synchronous > 1 ? new CountDownLatch(synchronous - 1) : null;
+            Handler local = null;
+
+            for (int i = tiers[t]; i < tiers[t + 1]; i++) {
+                final Handler h = handlers[i];
+
+                if (h.async()) {
+                    invokeAsync(h, event);
+                } else if (local == null) {
+                    local = h;
+                } else {
+                    execute(() -> {
+                        final Shard previous = TIER.get();
+                        TIER.set(owner);
+
+                        try {
+                            invoke(h, event);
+                        } finally {
+                            TIER.set(previous);
+                            latch.countDown();
+                        }
+                    });
+                }
+            }
+
+            if (local != null) invoke(local, event);
+            if (latch == null) continue;
+
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the shard whose dispatcher is the calling thread.
+     *
+     * @return Shard of the calling thread, or {@code null} if it is not a dispatcher
+     */
+    @Nullable
+    private Shard currentShard() {
+        final Thread thread = Thread.currentThread();
+
+        for (Shard shard : shards) {
+            if (shard.dispatcher == thread) return shard;
+        }
+
+        return null;
+    }
+
+    /**
+     * Runs a task on the workers, or on the calling thread if the workers reject it.
+     *
+     * @param task Task to run
+     */
+    private void execute(@Nonnull Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Invokes a handler on the workers without waiting for it.
+     * A pooled event is retained until the handler has finished.
+     * If it has already been released, this is reported and the handler is skipped.
+     *
+     * @param h     Handler to invoke
+     * @param event Event to pass to the handler
+     */
+    private void invokeAsync(@Nonnull Handler h, @Nonnull Event event) {
+        if (event instanceof PooledEvent p) {
+            try {
+                p.retain();
+            } catch (IllegalStateException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        execute(() -> {
+            try {
+                invoke(h, event);
+            } finally {
+                release(event);
+            }
+        });
+    }
+
+    /**
+     * Invokes a handler, and reports any exception it throws.
+     *
+     * @param h     Handler to invoke
+     * @param event Event to pass to the handler
+     */
+    private static void invoke(@Nonnull Handler h, @Nonnull Event event) {
+        try {
+            h.handle().invokeExact(event);
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the dispatch table of an event class, and builds it if it is not cached.
+     *
+     * @param type Class of event
+     * @return Handlers which accept the event class, sorted by priority
+     */
+    @Nonnull
+    private Table getTable(@Nonnull Class<?> type) {
+        final Registry r = registry;
+        final Table table = r.tables().get(type);
+        if (table != null) return table;
+
+        return r.tables().computeIfAbsent(type, t -> Table.of(r.handlers().stream()
+                .filter(h -> h.type().isAssignableFrom(t))
+                .sorted(Comparator.comparing(Handler::priority))
+                .toArray(Handler[]::new)));
+    }
+
+    /**
+     * The default capacity of the event queue.
+     */
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    /**
+     * The number of released events each pool keeps for reuse.
+     */
+    public static final int DEFAULT_POOL_CAPACITY = 1024;
+
+    /**
+     * The time a caller waits before retrying when the queue is full, in nanoseconds.
+     */
+    private static final long FULL_BACKOFF = 10_000;
+
+    /**
+     * The shard whose dispatcher is waiting on the parallel tier the current thread is running a handler of,
+     * directly or through a tier dispatched by that handler.
+     */
+    private static final ThreadLocal<Shard> TIER = new ThreadLocal<>();
+
+    @Nonnull
+    private final Shard[] shards;
+    @Nonnull
+    private final Map<Class<?>, Integer> assignments = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Map<Slot, Event> pending = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Map<Class<?>, EventPool<?>> pools = new ConcurrentHashMap<>();
     @Nonnull
-    private final Queue<Event> eventQueue = new LinkedList<>();
+    private final QueueMetrics metrics;
     @Nonnull
-    private final List<Listener> listeners = new ArrayList<>();
+    private volatile OverflowPolicy overflowPolicy;
     @Nonnull
-    private final SchedulerCore core = new SchedulerCore("EventManager-1", 0);
+    private volatile Executor workers = ForkJoinPool.commonPool();
+    private volatile boolean parallel = false;
+    @Nullable
+    private volatile EventJournal journal = null;
+    @Nonnull
+    private volatile Registry registry = new Registry(List.of());
 
     /**
      * Default constructor.
      */
     public EventManager() {
-        core.registerTask(delta -> {
-            while (!eventQueue.isEmpty()) {
-                final Event event = eventQueue.poll();
-                final List<Handler> handlers = new ArrayList<>();
-
-                if (event != null) {
-                    listeners.forEach(l -> Arrays.stream(l.getClass().getDeclaredMethods()).forEach(m -> {
-                        if (!m.isAnnotationPresent(EventHandler.class)) return;
-                        if (m.getParameterCount() != 1) return;
-                        if (!m.getParameters()[0].getType().isAssignableFrom(event.getClass())) return;
-
-                        handlers.add(new Handler(l, m));
-                    }));
-                }
+        this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
 
-                handlers.sort(Comparator.comparing(h -> h.method().getAnnotation(EventHandler.class).priority()));
+    /**
+     * Creates a new event manager which blocks callers while its queue is full.
+     *
+     * @param capacity Capacity of the event queue, rounded up to a power of two
+     * @throws IllegalArgumentException When the capacity is not in the range of {@code [1, 2^30]}
+     */
+    public EventManager(@Nonnegative int capacity) throws IllegalArgumentException {
+        this(capacity, OverflowPolicy.BLOCK);
+    }
 
-                handlers.forEach(h -> {
-                    try {
-                        h.method().invoke(h.listener, event);
-                    } catch (IllegalAccessException | InvocationTargetException e) {
-                        e.printStackTrace();
-                    }
-                });
-            }
-        });
+    /**
+     * Creates a new event manager with a single dispatch shard.
+     *
+     * @param capacity       Capacity of the event queue, rounded up to a power of two
+     * @param overflowPolicy Policy followed when an event is called while the queue is full
+     * @throws IllegalArgumentException When the capacity is not in the range of {@code [1, 2^30]}
+     */
+    public EventManager(@Nonnegative int capacity, @Nonnull OverflowPolicy overflowPolicy)
+            throws IllegalArgumentException {
+        this(capacity, overflowPolicy, 1);
+    }
+
+    /**
+     * Creates a new event manager.
+     *
+     * @param capacity       Capacity of each shard's event queue, rounded up to a power of two
+     * @param overflowPolicy Policy followed when an event is called while its shard's queue is full
+     * @param shards         Number of dispatch shards, each with its own queue and thread
+     * @throws IllegalArgumentException When the capacity is not in the range of {@code [1, 2^30]},
+     *                                  or the number of shards is not positive
+     */
+    public EventManager(@Nonnegative int capacity, @Nonnull OverflowPolicy overflowPolicy, @Nonnegative int shards)
+            throws IllegalArgumentException {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Number of shards must be positive.");
+        }
+
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) this.shards[i] = new Shard("EventManager-" + (i + 1), capacity);
+
+        final long total = (long) this.shards[0].queue.capacity() * shards;
+
+        this.metrics = new QueueMetrics((int) Math.min(total, Integer.MAX_VALUE));
+        this.overflowPolicy = overflowPolicy;
     }
 
     /**
-     * A transient data class for holding handler methods temporarily.
+     * A handler method discovered on a listener.
      *
-     * @param listener Listener object
-     * @param method   Method to call
+     * @param listener Listener the handler belongs to
+     * @param type     Class of event the handler accepts
+     * @param priority Priority of the handler
+     * @param handle   Method handle of the handler, bound to the listener and adapted to {@code (Event)void}
+     * @param async    Whether the handler runs asynchronously
      */
     private record Handler(
             @Nonnull Listener listener,
-            @Nonnull Method method
+            @Nonnull Class<?> type,
+            @Nonnull HandlerPriority priority,
+            @Nonnull MethodHandle handle,
+            boolean async
     ) {}
+
+    /**
+     * The dispatch table of an event class.
+     *
+     * @param handlers    Handlers which accept the event class, sorted by priority
+     * @param tiers       Index of the first handler of each priority tier, followed by the number of handlers
+     * @param synchronous Number of synchronous handlers of each priority tier
+     */
+    private record Table(
+            @Nonnull Handler[] handlers,
+            @Nonnull int[] tiers,
+            @Nonnull int[] synchronous
+    ) {
+        /**
+         * Builds a dispatch table from sorted handlers.
+         *
+         * @param handlers Handlers sorted by priority
+         * @return Dispatch table
+         */
+        @Nonnull
+        private static Table of(@Nonnull Handler[] handlers) {
+            int count = 0;
+            for (int i = 0; i < handlers.length; i++) {
+                if (i == 0 || handlers[i].priority() != handlers[i - 1].priority()) count++;
+            }
+
+            final int[] tiers = new int[count + 1];
+            final int[] synchronous = new int[count];
+
+            for (int i = 0, t = -1; i < handlers.length; i++) {
+                if (i == 0 || handlers[i].priority() != handlers[i - 1].priority()) tiers[++t] = i;
+                if (!handlers[i].async()) synchronous[t]++;
+            }
+
+            tiers[count] = handlers.length;
+            return new Table(handlers, tiers, synchronous);
+        }
+    }
+
+    /**
+     * A dispatch shard, which dispatches the events of the classes assigned to it on its own thread.
+     */
+    private final class Shard {
+        /**
+         * Creates a new shard.
+         *
+         * @param name     Name of the shard's thread
+         * @param capacity Capacity of the shard's event queue
+         * @throws IllegalArgumentException When the capacity is not in the range of {@code [1, 2^30]}
+         */
+        private Shard(@Nonnull String name, @Nonnegative int capacity) throws IllegalArgumentException {
+            this.queue = new EventQueue(capacity);
+            this.core = new SchedulerCore(name, 0);
+
+            core.registerTask(delta -> drain());
+        }
+
+        /**
+         * Dispatches every queued event, then every event held back by coalescing.
+         */
+        private void drain() {
+            dispatcher = Thread.currentThread();
+            metrics.recordDepth(queue.size());
+            unspill();
+
+            for (Event event = queue.poll(); event != null; event = queue.poll()) {
+                process(event);
+                unspill();
+            }
+
+            // Events held back by coalescing are handled once the queue has been drained, in the order they were held
+            final Event[] events;
+
+            synchronized (held) {
+                if (held.isEmpty()) return;
+
+                events = held.values().toArray(Event[]::new);
+                held.clear();
+                heldTypes.clear();
+                holding = false;
+            }
+
+            for (Event event : events) process(event);
+        }
+
+        /**
+         * Moves events spilled by handlers of parallel tiers to the back of the queue, as far as it has room.
+         * Only the dispatcher moves spilled events, so they enter the queue in the order they were spilled.
+         */
+        private void unspill() {
+            for (Event event = spill.peek(); event != null && queue.offer(event); event = spill.peek()) {
+                spill.poll();
+            }
+        }
+
+        /**
+         * Checks if events of a class are held back by coalescing.
+         *
+         * @param type Class of event
+         * @return {@code true} if an event of the class is held
+         */
+        private boolean isHolding(@Nonnull Class<?> type) {
+            if (!holding) return false;
+
+            synchronized (held) {
+                return heldTypes.contains(type);
+            }
+        }
+
+        @Nonnull
+        private final EventQueue queue;
+        @Nonnull
+        private final Map<Object, Event> held = new LinkedHashMap<>();
+        @Nonnull
+        private final Set<Class<?>> heldTypes = new HashSet<>();
+        private volatile boolean holding = false;
+        @Nonnull
+        private final SchedulerCore core;
+        @Nullable
+        private volatile Thread dispatcher = null;
+        @Nonnull
+        private final Queue<Event> spill = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * A queued event whose caller waits for its outcome.
+     *
+     * @param event  Event to dispatch
+     * @param future Future to complete once the event has been dispatched
+     * @param <E>    Type of event
+     */
+    private record Call<E extends Event>(@Nonnull E event, @Nonnull CompletableFuture<E> future) implements Event {
+        /**
+         * Dispatches the event, then completes the future.
+         *
+         * @param manager Event manager to dispatch the event with
+         */
+        private void run(@Nonnull EventManager manager) {
+            manager.dispatch(event);
+            future.complete(event);
+        }
+    }
+
+    /**
+     * A queued placeholder for the latest pending event of a coalescing key.
+     *
+     * @param type Class of the event
+     * @param key  Coalescing key of the event
+     */
+    private record Slot(@Nonnull Class<?> type, @Nonnull Object key) implements Event {}
+
+    /**
+     * An immutable snapshot of the registered handlers, and the dispatch tables built from it.
+     *
+     * @param handlers Registered handlers, in the order they were registered
+     * @param tables   Dispatch tables by event class
+     */
+    private record Registry(
+            @Nonnull List<Handler> handlers,
+            @Nonnull Map<Class<?>, Table> tables
+    ) {
+        /**
+         * Creates a new snapshot with no dispatch tables.
+         *
+         * @param handlers Registered handlers
+         */
+        private Registry(@Nonnull List<Handler> handlers) {
+            this(handlers, new ConcurrentHashMap<>());
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package civitas.celestis.event.lifecycle;
+
+import civitas.celestis.event.Event;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <h2>EventQueue</h2>
+ * <p>
+ * A bounded, lock-free queue of events.
+ * Events are stored in a preallocated ring buffer, so queueing an event does not allocate.
+ * Each slot carries a sequence number which tells producers and consumers whether it is free or filled,
+ * so producers only contend on a single compare-and-set of the tail, and consumers on one of the head.
+ * </p>
+ * <p>
+ * Events are normally consumed by a single dispatcher,
+ * but producers may also poll to drop the oldest event of a full queue.
+ * </p>
+ */
+final class EventQueue {
+    /**
+     * Creates a new event queue.
+     *
+     * @param capacity Capacity of this queue, rounded up to a power of two
+     * @throws IllegalArgumentException When the capacity is not in the range of {@code [1, 2^30]}
+     */
+    EventQueue(@Nonnegative int capacity) throws IllegalArgumentException {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be in the range of [1, 2^30].");
+        }
+
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.tail = new AtomicLong();
+        this.head = new AtomicLong();
+
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    /**
+     * Adds an event to the tail of this queue.
+     *
+     * @param event Event to add
+     * @return {@code true} if the event was added, {@code false} if this queue is full
+     */
+    boolean offer(@Nonnull Event event) {
+        long pos = tail.get();
+
+        while (true) {
+            final int i = (int) (pos & mask);
+            final long diff = sequences.get(i) - pos;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(i, event);
+                    sequences.set(i, pos + 1);
+                    return true;
+                }
+
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the event at the head of this queue.
+     *
+     * @return Event at the head, or {@code null} if this queue is empty
+     */
+    @Nullable
+    Event poll() {
+        long pos = head.get();
+
+        while (true) {
+            final int i = (int) (pos & mask);
+            final long diff = sequences.get(i) - (pos + 1);
+
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    final Event event = buffer.get(i);
+                    buffer.lazySet(i, null);
+                    sequences.set(i, pos + mask + 1);
+                    return event;
+                }
+
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Gets the approximate number of events in this queue.
+     *
+     * @return Number of events
+     */
+    @Nonnegative
+    int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), mask + 1));
+    }
+
+    /**
+     * Gets the capacity of this queue.
+     *
+     * @return Capacity
+     */
+    @Nonnegative
+    int capacity() {
+        return mask + 1;
+    }
+
+    private final int mask;
+    @Nonnull
+    private final AtomicReferenceArray<Event> buffer;
+    @Nonnull
+    private final AtomicLongArray sequences;
+    @Nonnull
+    private final AtomicLong tail;
+    @Nonnull
+    private final AtomicLong head;
+}
@@ -0,0 +1,103 @@
+package civitas.celestis.event.lifecycle;
+
+import civitas.celestis.event.Event;
+import civitas.celestis.event.ReplaySpeed;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <h2>EventReplay</h2>
+ * <p>
+ * Feeds the events recorded by an {@link EventJournal} back into an {@link EventManager}, in the order
+ * they were recorded. Events are decoded with the journal's codecs, and records whose codec id is not
+ * registered are skipped. Replaying at {@link ReplaySpeed#MAXIMUM maximum} speed is a way to load test
+ * a manager with a realistic event stream.
+ * </p>
+ */
+public final class EventReplay {
+    /**
+     * Creates a new replay of an event journal.
+     *
+     * @param journal Journal to replay
+     */
+    public EventReplay(@Nonnull EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Replays every recorded event into an event manager, calling each event with {@link EventManager#call(Event)}.
+     * This blocks until the last event has been called, but does not wait for it to be dispatched.
+     *
+     * @param manager Event manager to call events on
+     * @param speed   Speed to replay events at
+     * @return Number of events called
+     * @throws IOException When a segment cannot be read, or is not a journal segment
+     */
+    @Nonnegative
+    public long replay(@Nonnull EventManager manager, @Nonnull ReplaySpeed speed) throws IOException {
+        long count = 0;
+        long origin = 0;
+        long start = 0;
+
+        for (Path path : journal.getSegments()) {
+            final MappedByteBuffer segment;
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (segment.remaining() < EventJournal.SEGMENT_HEADER || segment.getInt(0) != EventJournal.MAGIC
+                    || segment.getInt(4) != EventJournal.VERSION) {
+                throw new IOException("Not a journal segment: " + path);
+            }
+
+            int position = EventJournal.SEGMENT_HEADER;
+
+            while (segment.limit() - position >= EventJournal.RECORD_HEADER) {
+                final int size = segment.getInt(position);
+
+                // A size of zero ends the segment, and an invalid size means it was not fully written
+                if (size < EventJournal.RECORD_HEADER || size > segment.limit() - position) break;
+
+                final int id = segment.getInt(position + 4);
+                final long timestamp = segment.getLong(position + 8);
+                final Event event = journal.decode(id, segment
+                        .slice(position + EventJournal.RECORD_HEADER, size - EventJournal.RECORD_HEADER)
+                        .order(ByteOrder.LITTLE_ENDIAN));
+
+                position += size;
+                if (event == null) continue;
+
+                if (speed == ReplaySpeed.ORIGINAL) {
+                    if (count == 0) {
+                        origin = timestamp;
+                        start = System.nanoTime();
+                    }
+
+                    final long deadline = start + (timestamp - origin);
+                    for (long wait = deadline - System.nanoTime(); wait > 0; wait = deadline - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                manager.call(event);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Nonnull
+    private final EventJournal journal;
+}
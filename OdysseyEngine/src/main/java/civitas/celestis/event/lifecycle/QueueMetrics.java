@@ -0,0 +1,234 @@
+package civitas.celestis.event.lifecycle;
+
+import civitas.celestis.util.Histogram;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>QueueMetrics</h2>
+ * <p>
+ * Statistics of the event queue of an {@link EventManager}.
+ * Every overflow policy has its own counter, so the counters remain meaningful when the policy is changed.
+ * </p>
+ */
+public final class QueueMetrics {
+    /**
+     * Creates a new empty set of metrics.
+     *
+     * @param capacity Capacity of the queue
+     */
+    QueueMetrics(@Nonnegative int capacity) {
+        this.capacity = capacity;
+        this.depth = new Histogram();
+        this.called = new LongAdder();
+        this.dispatched = new LongAdder();
+        this.blocked = new LongAdder();
+        this.droppedOldest = new LongAdder();
+        this.droppedNewest = new LongAdder();
+        this.coalesced = new LongAdder();
+        this.superseded = new LongAdder();
+    }
+
+    @Nonnegative
+    private final int capacity;
+    @Nonnull
+    private final Histogram depth;
+    @Nonnull
+    private final LongAdder called;
+    @Nonnull
+    private final LongAdder dispatched;
+    @Nonnull
+    private final LongAdder blocked;
+    @Nonnull
+    private final LongAdder droppedOldest;
+    @Nonnull
+    private final LongAdder droppedNewest;
+    @Nonnull
+    private final LongAdder coalesced;
+    @Nonnull
+    private final LongAdder superseded;
+
+    /**
+     * Counts a called event.
+     */
+    void countCalled() {
+        called.increment();
+    }
+
+    /**
+     * Counts a dispatched event.
+     */
+    void countDispatched() {
+        dispatched.increment();
+    }
+
+    /**
+     * Counts a call which had to wait for room.
+     */
+    void countBlocked() {
+        blocked.increment();
+    }
+
+    /**
+     * Counts a queued event which was dropped to make room.
+     */
+    void countDroppedOldest() {
+        droppedOldest.increment();
+    }
+
+    /**
+     * Counts a called event which was dropped.
+     */
+    void countDroppedNewest() {
+        droppedNewest.increment();
+    }
+
+    /**
+     * Counts an event which was replaced by a newer event.
+     */
+    void countCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * Counts a pending coalescing event which was replaced by a newer event of the same key.
+     */
+    void countSuperseded() {
+        superseded.increment();
+    }
+
+    /**
+     * Records the depth of the queue.
+     *
+     * @param depth Number of queued events
+     */
+    void recordDepth(@Nonnegative int depth) {
+        this.depth.record(depth);
+    }
+
+    /**
+     * Gets the capacity of the queue.
+     *
+     * @return Capacity
+     */
+    @Nonnegative
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the histogram of queue depths, sampled each time the dispatcher starts draining the queue.
+     *
+     * @return Depth histogram
+     */
+    @Nonnull
+    public Histogram getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of events called.
+     *
+     * @return Number of called events
+     */
+    @Nonnegative
+    public long getCalled() {
+        return called.sum();
+    }
+
+    /**
+     * Gets the number of events dispatched.
+     *
+     * @return Number of dispatched events
+     */
+    @Nonnegative
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * Gets the number of calls which had to wait for room under {@link civitas.celestis.event.OverflowPolicy#BLOCK}.
+     *
+     * @return Number of blocked calls
+     */
+    @Nonnegative
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * Gets the number of queued events dropped under {@link civitas.celestis.event.OverflowPolicy#DROP_OLDEST}.
+     *
+     * @return Number of dropped events
+     */
+    @Nonnegative
+    public long getDroppedOldest() {
+        return droppedOldest.sum();
+    }
+
+    /**
+     * Gets the number of called events dropped under {@link civitas.celestis.event.OverflowPolicy#DROP_NEWEST}.
+     *
+     * @return Number of dropped events
+     */
+    @Nonnegative
+    public long getDroppedNewest() {
+        return droppedNewest.sum();
+    }
+
+    /**
+     * Gets the number of events replaced by a newer event under {@link civitas.celestis.event.OverflowPolicy#COALESCE}.
+     *
+     * @return Number of coalesced events
+     */
+    @Nonnegative
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the number of pending {@link civitas.celestis.event.CoalescingEvent coalescing events}
+     * replaced by a newer event of the same key. These are not counted as dropped.
+     *
+     * @return Number of superseded events
+     */
+    @Nonnegative
+    public long getSuperseded() {
+        return superseded.sum();
+    }
+
+    /**
+     * Gets the fraction of called events which were dropped or coalesced by the overflow policy.
+     *
+     * @return Drop rate in the range of {@code [0, 1]}
+     */
+    @Nonnegative
+    public double getDropRate() {
+        final long n = getCalled();
+        return n == 0 ? 0 : (double) (getDroppedOldest() + getDroppedNewest() + getCoalesced()) / n;
+    }
+
+    /**
+     * Clears all recorded metrics.
+     */
+    public void reset() {
+        depth.reset();
+        called.reset();
+        dispatched.reset();
+        blocked.reset();
+        droppedOldest.reset();
+        droppedNewest.reset();
+        coalesced.reset();
+        superseded.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMetrics{capacity=" + capacity + ", depth=" + depth + ", called=" + getCalled()
+                + ", dispatched=" + getDispatched() + ", blocked=" + getBlocked()
+                + ", droppedOldest=" + getDroppedOldest() + ", droppedNewest=" + getDroppedNewest()
+                + ", coalesced=" + getCoalesced() + ", superseded=" + getSuperseded() + "}";
+    }
+}
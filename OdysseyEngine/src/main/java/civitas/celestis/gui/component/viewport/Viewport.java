@@ -8,15 +8,21 @@ import civitas.celestis.math.rotation.Rotation;
 import civitas.celestis.math.vector.Vector3;
 import civitas.celestis.object.TangibleObject;
 import civitas.celestis.world.World;
+import civitas.celestis.world.lifecycle.WorldManager;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.swing.*;
 import java.awt.*;
 
 /**
  * <h2>Viewport</h2>
  * <p>Renders a world to a scene, then projects it to the screen.</p>
+ * <p>
+ * When given the world manager which ticks its world, the viewport draws objects at their
+ * {@link WorldManager#getInterpolatedLocation(civitas.celestis.object.BaseObject) interpolated} locations.
+ * </p>
  */
 public class Viewport extends JPanel {
     /**
@@ -25,10 +31,21 @@ public class Viewport extends JPanel {
      * @param world World to render
      */
     public Viewport(@Nonnull LayoutManager layout, @Nonnull World world) {
+        this(layout, world, null);
+    }
+
+    /**
+     * Creates a new viewport.
+     * @param layout Layout manager object
+     * @param world World to render
+     * @param worldManager World manager to interpolate object locations with, or {@code null} to not interpolate
+     */
+    public Viewport(@Nonnull LayoutManager layout, @Nonnull World world, @Nullable WorldManager worldManager) {
         super(layout, true);
 
         this.scene = new Scene();
         this.world = world;
+        this.worldManager = worldManager;
         this.origin = Vector3.ZERO;
         this.angle = Rotation.NO_ROTATION;
     }
@@ -38,10 +55,20 @@ public class Viewport extends JPanel {
      * @param world World to render
      */
     public Viewport(@Nonnull World world) {
+        this(world, null);
+    }
+
+    /**
+     * Creates a new viewport.
+     * @param world World to render
+     * @param worldManager World manager to interpolate object locations with, or {@code null} to not interpolate
+     */
+    public Viewport(@Nonnull World world, @Nullable WorldManager worldManager) {
         super(true);
 
         this.scene = new Scene();
         this.world = world;
+        this.worldManager = worldManager;
         this.origin = Vector3.ZERO;
         this.angle = Rotation.NO_ROTATION;
     }
@@ -64,11 +91,30 @@ public class Viewport extends JPanel {
         // Clear scene
         scene.clear();
 
+        final WorldManager interpolator = worldManager;
+
         // Add object vertices
         world.getObjects().stream()
                 .filter(TangibleObject.class::isInstance)
                 .map(TangibleObject.class::cast)
-                .forEach(o -> scene.addVertices(o.getVertices()));
+                .forEach(o -> {
+                    if (interpolator == null) {
+                        scene.addVertices(o.getVertices());
+                        return;
+                    }
+
+                    // Blend between the last two simulation states
+                    final Vector3 offset = interpolator.getInterpolatedLocation(o).subtract(o.getLocation());
+
+                    if (offset.equals(Vector3.ZERO)) {
+                        scene.addVertices(o.getVertices());
+                        return;
+                    }
+
+                    scene.addVertices(o.getVertices().stream()
+                            .map(v -> v.transform(offset.negate(), Rotation.NO_ROTATION))
+                            .toList());
+                });
     }
 
     /**
@@ -123,6 +169,8 @@ public class Viewport extends JPanel {
     private final Scene scene;
     @Nonnull
     private World world;
+    @Nullable
+    private WorldManager worldManager;
     @Nonnull
     private Vector3 origin;
     @Nonnull
@@ -159,6 +207,15 @@ public class Viewport extends JPanel {
         return world;
     }
 
+    /**
+     * Gets the world manager this viewport interpolates object locations with.
+     * @return World manager of viewport, or {@code null} if locations are not interpolated
+     */
+    @Nullable
+    public WorldManager getWorldManager() {
+        return worldManager;
+    }
+
     /**
      * Gets the origin of this viewport.
      * @return Origin of viewport
@@ -185,6 +242,14 @@ public class Viewport extends JPanel {
         this.world = world;
     }
 
+    /**
+     * Sets the world manager this viewport interpolates object locations with.
+     * @param worldManager World manager which ticks the rendered world, or {@code null} to not interpolate
+     */
+    public void setWorldManager(@Nullable WorldManager worldManager) {
+        this.worldManager = worldManager;
+    }
+
     /**
      * Sets the origin of this viewport.
      * @param origin Viewport origin
@@ -0,0 +1,25 @@
+package civitas.celestis.task;
+
+/**
+ * <h2>ExecutionMode</h2>
+ * <p>Determines which threads a scheduler uses to execute its tasks.</p>
+ */
+public enum ExecutionMode {
+    /**
+     * Tasks are executed on the thread of the scheduler core they are registered to.
+     * A slow task will delay every other task of the same core.
+     */
+    PINNED,
+
+    /**
+     * Tasks are timed by the scheduler core, but executed on a shared work-stealing pool.
+     * Idle workers take due tasks from busy ones, so a slow task only occupies a single worker.
+     */
+    WORK_STEALING,
+
+    /**
+     * Tasks are timed by the scheduler core, but each execution runs on its own virtual thread.
+     * Suited for tasks which spend most of their time blocked on I/O.
+     */
+    VIRTUAL
+}
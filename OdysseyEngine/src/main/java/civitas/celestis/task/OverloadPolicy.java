@@ -0,0 +1,28 @@
+package civitas.celestis.task;
+
+/**
+ * <h2>OverloadPolicy</h2>
+ * <p>
+ * Determines how a scheduler executes a task whose deadlines have passed without an execution,
+ * such as after a long pause of its core.
+ * The amount of time a single pass may account for is bounded by {@link PreciseTask#maxDeltaNanos()}.
+ * </p>
+ */
+public enum OverloadPolicy {
+    /**
+     * Missed executions are merged into a single execution, with its delta capped to the maximum delta.
+     * Time beyond the cap is dropped.
+     */
+    COALESCE,
+
+    /**
+     * Missed executions are run back-to-back with a delta of one interval each,
+     * until the maximum delta is used up. Remaining missed executions are dropped.
+     */
+    CATCH_UP,
+
+    /**
+     * Missed executions are dropped, and the task is executed once with a delta of one interval.
+     */
+    DROP
+}
@@ -0,0 +1,57 @@
+package civitas.celestis.task;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * <h2>PreciseTask</h2>
+ * <p>
+ * A task which is timed in nanoseconds using the monotonic clock of {@link System#nanoTime()}.
+ * Unlike {@link Task}, executing a precise task does not allocate any objects,
+ * and its interval can be shorter than a millisecond.
+ * </p>
+ */
+public interface PreciseTask {
+    /**
+     * Executes this task.
+     *
+     * @param delta Nanoseconds between the last execution and now
+     */
+    void execute(@Nonnegative long delta);
+
+    /**
+     * Gets the interval of this task in nanoseconds the scheduler should aim to respect.
+     * Intervals shorter than a microsecond are treated as one microsecond.
+     *
+     * @return Interval in nanoseconds
+     */
+    @Nonnegative
+    default long intervalNanos() {return 1_000_000;}
+
+    /**
+     * Checks if this task performs blocking operations, such as I/O.
+     * Blocking tasks are executed on virtual threads regardless of the scheduler's {@link ExecutionMode},
+     * so they do not hold up other tasks of the same core.
+     *
+     * @return {@code true} if this task blocks
+     */
+    default boolean blocking() {return false;}
+
+    /**
+     * Gets the policy the scheduler follows when this task has missed deadlines.
+     *
+     * @return {@link OverloadPolicy}
+     */
+    @Nonnull
+    default OverloadPolicy overloadPolicy() {return OverloadPolicy.COALESCE;}
+
+    /**
+     * Gets the most time in nanoseconds a single pass of the scheduler may account for when executing this task.
+     * By default this is unbounded, so a late task is executed once with the full elapsed delta.
+     *
+     * @return Maximum delta in nanoseconds
+     * @see #overloadPolicy()
+     */
+    @Nonnegative
+    default long maxDeltaNanos() {return Long.MAX_VALUE;}
+}
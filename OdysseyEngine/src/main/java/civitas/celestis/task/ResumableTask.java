@@ -0,0 +1,49 @@
+package civitas.celestis.task;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * <h2>ResumableTask</h2>
+ * <p>
+ * A long-running job which is spread over many executions instead of blocking its core.
+ * Each execution is given a time slice, and the job works until the slice is used up,
+ * then returns and continues from where it left off on its next execution.
+ * Slices are cooperative: the job itself must check the deadline it is given.
+ * </p>
+ * <p>
+ * Once {@link #resume(long, long)} reports that the job has finished, the scheduler unregisters it,
+ * and its handle reports as cancelled.
+ * </p>
+ */
+public interface ResumableTask extends PreciseTask {
+    /**
+     * Continues this job until it is finished, or until the deadline has passed.
+     * The deadline is compared against {@link System#nanoTime()}, for example
+     * {@code while (System.nanoTime() - deadline < 0)}.
+     *
+     * @param delta    Nanoseconds between the last execution and now
+     * @param deadline Time in nanoseconds by which this execution should return
+     * @return {@code true} if the job has finished
+     */
+    boolean resume(@Nonnegative long delta, long deadline);
+
+    /**
+     * Gets the time slice this job is given per execution, in nanoseconds.
+     * The scheduler may give a shorter slice if its core's frame budget is nearly used up.
+     *
+     * @return Time slice in nanoseconds
+     */
+    @Nonnegative
+    default long sliceNanos() {return 1_000_000;}
+
+    /**
+     * Continues this job for one full time slice.
+     * This is used when the job is executed outside a scheduler core, such as in a {@link TickGraph}.
+     *
+     * @param delta Nanoseconds between the last execution and now
+     */
+    @Override
+    default void execute(@Nonnegative long delta) {
+        resume(delta, System.nanoTime() + sliceNanos());
+    }
+}
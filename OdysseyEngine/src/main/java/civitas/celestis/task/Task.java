@@ -6,9 +6,12 @@ import javax.annotation.Nonnull;
 
 /**
  * <h2>Task</h2>
- * <p>A task can be executed in regular intervals.</p>
+ * <p>
+ * A task can be executed in regular intervals.
+ * Tasks are adapted to {@link PreciseTask} by converting the nanosecond delta to a {@link Duration}.
+ * </p>
  */
-public interface Task {
+public interface Task extends PreciseTask {
     /**
      * Executes this task.
      *
@@ -25,6 +28,27 @@ public interface Task {
     @Nonnull
     default Duration interval() {return IMMEDIATE;}
 
+    /**
+     * Adapts this task to {@link PreciseTask}.
+     *
+     * @param delta Nanoseconds between the last execution and now
+     */
+    @Override
+    default void execute(long delta) {
+        execute(new Duration(delta / 1_000_000));
+    }
+
+    /**
+     * Adapts the interval of this task to {@link PreciseTask}.
+     * Intervals shorter than a millisecond are treated as {@link #IMMEDIATE}.
+     *
+     * @return Interval in nanoseconds
+     */
+    @Override
+    default long intervalNanos() {
+        return Math.max(interval().getMillis(), 1) * 1_000_000;
+    }
+
     /**
      * This is set to 1ms to ensure that delta will be positive.
      */
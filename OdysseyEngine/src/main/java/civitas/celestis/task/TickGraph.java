@@ -0,0 +1,253 @@
+package civitas.celestis.task;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <h2>TickGraph</h2>
+ * <p>
+ * A frame of tasks with dependencies between them.
+ * Each execution of the graph runs every task once, with the same delta.
+ * A task only starts after all of its dependencies have finished,
+ * and tasks which do not depend on each other run in parallel on the graph's executor.
+ * The execution returns once every task of the frame has finished.
+ * </p>
+ * <p>
+ * Dependencies must be added to the graph before the tasks which depend on them, which rules out cycles.
+ * The graph itself is a task, and is usually registered to a scheduler.
+ * </p>
+ * <p>
+ * Waiting for a frame is a {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker) managed block},
+ * so a graph executed on a fork-join worker lets the pool compensate instead of losing the worker.
+ * A task rejected by the executor is run on the thread which submitted it.
+ * </p>
+ */
+public class TickGraph implements PreciseTask {
+    /**
+     * Creates a new tick graph which runs its tasks on the common pool.
+     */
+    public TickGraph() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new tick graph.
+     *
+     * @param executor Executor to run tasks on
+     */
+    public TickGraph(@Nonnull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a task to this graph.
+     *
+     * @param task         Task to add
+     * @param dependencies Tasks which must finish before this task starts
+     * @throws IllegalArgumentException When the task is already in this graph, or a dependency is not
+     */
+    public void addTask(@Nonnull Task task, @Nonnull PreciseTask... dependencies) throws IllegalArgumentException {
+        addTask((PreciseTask) task, dependencies);
+    }
+
+    /**
+     * Adds a precise task to this graph.
+     *
+     * @param task         Task to add
+     * @param dependencies Tasks which must finish before this task starts
+     * @throws IllegalArgumentException When the task is already in this graph, or a dependency is not
+     */
+    public synchronized void addTask(@Nonnull PreciseTask task, @Nonnull PreciseTask... dependencies)
+            throws IllegalArgumentException {
+        if (tasks.contains(task)) {
+            throw new IllegalArgumentException("Task is already in this graph.");
+        }
+
+        for (PreciseTask dependency : dependencies) {
+            if (!tasks.contains(dependency)) {
+                throw new IllegalArgumentException("Dependencies must be added to the graph first.");
+            }
+        }
+
+        tasks.add(task);
+        this.dependencies.put(task, List.of(dependencies));
+        frame = compile();
+    }
+
+    /**
+     * Removes a task from this graph.
+     *
+     * @param task Task to remove
+     * @throws IllegalArgumentException When another task of this graph depends on the task
+     */
+    public synchronized void removeTask(@Nonnull PreciseTask task) throws IllegalArgumentException {
+        for (List<PreciseTask> d : dependencies.values()) {
+            if (d.contains(task)) {
+                throw new IllegalArgumentException("Cannot remove a task which other tasks depend on.");
+            }
+        }
+
+        if (!tasks.remove(task)) return;
+
+        dependencies.remove(task);
+        frame = compile();
+    }
+
+    /**
+     * Gets a list of all tasks in this graph, in the order they were added.
+     *
+     * @return List of tasks
+     */
+    @Nonnull
+    public synchronized List<PreciseTask> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Runs one frame of this graph, and waits for every task to finish.
+     * If any task throws an exception, the first one is rethrown after the frame has finished.
+     *
+     * @param delta Nanoseconds between the last execution and now
+     */
+    @Override
+    public void execute(@Nonnegative long delta) {
+        final Node[] nodes = frame;
+        if (nodes.length == 0) return;
+
+        final AtomicInteger[] pending = new AtomicInteger[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            pending[i] = new AtomicInteger(nodes[i].dependencies);
+        }
+
+        final CountDownLatch barrier = new CountDownLatch(nodes.length);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i].dependencies == 0) submit(nodes, i, pending, barrier, failure, delta);
+        }
+
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    barrier.await();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return barrier.getCount() == 0;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        final RuntimeException e = failure.get();
+        if (e != null) throw e;
+    }
+
+    /**
+     * Submits a node to the executor, and submits its dependents once it has finished.
+     * If the executor rejects the node, it is run on the calling thread instead.
+     *
+     * @param nodes   Nodes of the frame
+     * @param i       Index of the node to submit
+     * @param pending Number of unfinished dependencies of each node
+     * @param barrier Barrier of the frame
+     * @param failure First exception thrown by a task of the frame
+     * @param delta   Nanoseconds between the last execution and now
+     */
+    private void submit(
+            @Nonnull Node[] nodes,
+            int i,
+            @Nonnull AtomicInteger[] pending,
+            @Nonnull CountDownLatch barrier,
+            @Nonnull AtomicReference<RuntimeException> failure,
+            long delta
+    ) {
+        final Runnable run = () -> {
+            try {
+                nodes[i].task.execute(delta);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (int d : nodes[i].dependents) {
+                    if (pending[d].decrementAndGet() == 0) submit(nodes, d, pending, barrier, failure, delta);
+                }
+
+                barrier.countDown();
+            }
+        };
+
+        try {
+            executor.execute(run);
+        } catch (RejectedExecutionException e) {
+            run.run();
+        }
+    }
+
+    /**
+     * Compiles the current tasks into an immutable frame.
+     *
+     * @return Array of nodes
+     */
+    @Nonnull
+    private Node[] compile() {
+        final Map<PreciseTask, Integer> indices = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) indices.put(tasks.get(i), i);
+
+        final List<List<Integer>> dependents = new ArrayList<>();
+        tasks.forEach(t -> dependents.add(new ArrayList<>()));
+
+        for (int i = 0; i < tasks.size(); i++) {
+            for (PreciseTask d : dependencies.get(tasks.get(i))) {
+                dependents.get(indices.get(d)).add(i);
+            }
+        }
+
+        final Node[] nodes = new Node[tasks.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new Node(
+                    tasks.get(i),
+                    (int) dependencies.get(tasks.get(i)).stream().distinct().count(),
+                    dependents.get(i).stream().distinct().mapToInt(Integer::intValue).toArray()
+            );
+        }
+
+        return nodes;
+    }
+
+    @Nonnull
+    private final Executor executor;
+    @Nonnull
+    private final List<PreciseTask> tasks = new ArrayList<>();
+    @Nonnull
+    private final Map<PreciseTask, List<PreciseTask>> dependencies = new HashMap<>();
+    @Nonnull
+    private volatile Node[] frame = new Node[0];
+
+    /**
+     * A compiled task of a frame.
+     *
+     * @param task         Task to execute
+     * @param dependencies Number of tasks which must finish first
+     * @param dependents   Indices of the tasks which depend on this task
+     */
+    private record Node(
+            @Nonnull PreciseTask task,
+            @Nonnegative int dependencies,
+            @Nonnull int[] dependents
+    ) {}
+}
@@ -0,0 +1,57 @@
+package civitas.celestis.task.lifecycle;
+
+import javax.annotation.Nonnull;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <h2>EngineClock</h2>
+ * <p>
+ * The source of time for scheduler cores.
+ * The {@link #SYSTEM system clock} follows {@link System#nanoTime()},
+ * while a {@link VirtualClock} only advances once every core has finished its due work.
+ * </p>
+ */
+public interface EngineClock {
+    /**
+     * Gets the current time of this clock.
+     *
+     * @return Current time in nanoseconds
+     */
+    long nanoTime();
+
+    /**
+     * Waits until this clock reaches the deadline, the signal becomes {@code true}, or the thread is interrupted.
+     *
+     * @param deadline Time to wait until in nanoseconds
+     * @param signal   Condition which becomes {@code true} when the core has new work
+     * @param strategy Wait strategy of the core
+     */
+    default void await(long deadline, @Nonnull BooleanSupplier signal, @Nonnull WaitStrategy strategy) {
+        strategy.await(deadline, signal);
+    }
+
+    /**
+     * Called when a core starts using this clock.
+     */
+    default void register() {}
+
+    /**
+     * Called when a core stops using this clock.
+     */
+    default void deregister() {}
+
+    /**
+     * Called when a core dispatches a task to another thread.
+     */
+    default void begin() {}
+
+    /**
+     * Called when a core takes back a task it has dispatched.
+     */
+    default void end() {}
+
+    /**
+     * The clock of {@link System#nanoTime()}.
+     */
+    EngineClock SYSTEM = System::nanoTime;
+}
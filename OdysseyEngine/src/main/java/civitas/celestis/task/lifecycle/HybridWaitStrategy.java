@@ -0,0 +1,76 @@
+package civitas.celestis.task.lifecycle;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <h2>HybridWaitStrategy</h2>
+ * <p>
+ * Parks the thread while the deadline is far away, yields as it approaches,
+ * and spins for the final stretch.
+ * The strategy measures how late each park wakes up, and parks that much earlier next time,
+ * so it only spins for as long as the OS timer requires.
+ * </p>
+ * <p>
+ * Each core should have its own instance, as the measured oversleep is kept per instance.
+ * </p>
+ */
+public final class HybridWaitStrategy implements WaitStrategy {
+    /**
+     * Creates a new hybrid wait strategy which spins for the last 10 microseconds.
+     */
+    public HybridWaitStrategy() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a new hybrid wait strategy.
+     *
+     * @param spinThreshold Nanoseconds before the deadline at which the strategy stops yielding and starts spinning
+     */
+    public HybridWaitStrategy(@Nonnegative long spinThreshold) {
+        this.spinThreshold = spinThreshold;
+        this.parkThreshold = 100_000;
+    }
+
+    @Override
+    public void await(long deadline, @Nonnull BooleanSupplier signal) {
+        final Thread thread = Thread.currentThread();
+
+        while (true) {
+            if (signal.getAsBoolean() || thread.isInterrupted()) return;
+
+            final long now = System.nanoTime();
+            final long remaining = deadline - now;
+            if (remaining <= 0) return;
+
+            if (remaining > parkThreshold) {
+                // Park, then learn how late the park woke up
+                final long requested = remaining - parkThreshold;
+                LockSupport.parkNanos(this, requested);
+
+                final long oversleep = Math.max(0, System.nanoTime() - now - requested);
+                oversleepEstimate += (oversleep - oversleepEstimate) / 8;
+                parkThreshold = Math.max(MINIMUM_PARK_THRESHOLD, 2 * oversleepEstimate);
+            } else if (remaining > spinThreshold) {
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * The lowest park threshold the strategy will adapt to.
+     */
+    private static final long MINIMUM_PARK_THRESHOLD = 20_000;
+
+    @Nonnegative
+    private final long spinThreshold;
+    @Nonnegative
+    private long parkThreshold;
+    @Nonnegative
+    private long oversleepEstimate = 0;
+}
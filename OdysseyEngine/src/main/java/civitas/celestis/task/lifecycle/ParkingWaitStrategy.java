@@ -0,0 +1,23 @@
+package civitas.celestis.task.lifecycle;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <h2>ParkingWaitStrategy</h2>
+ * <p>
+ * Parks the thread until the deadline.
+ * The core unparks its thread when new work arrives, so no CPU is used while waiting.
+ * This is the default strategy.
+ * </p>
+ */
+public final class ParkingWaitStrategy implements WaitStrategy {
+    @Override
+    public void await(long deadline, @Nonnull BooleanSupplier signal) {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0 || signal.getAsBoolean()) return;
+
+        LockSupport.parkNanos(this, remaining);
+    }
+}
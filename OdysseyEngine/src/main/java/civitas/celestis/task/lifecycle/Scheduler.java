@@ -1,22 +1,150 @@
 package civitas.celestis.task.lifecycle;
 
+import civitas.celestis.task.ExecutionMode;
+import civitas.celestis.task.PreciseTask;
 import civitas.celestis.task.Task;
-import civitas.celestis.util.Counter;
+import civitas.celestis.util.Histogram;
+import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
 
 /**
  * <h2>Scheduler</h2>
  * <p>Manages the lifecycle of tasks.</p>
+ * <p>
+ * Tasks are registered to the core with the lowest estimated load, based on its last measured load
+ * and the tasks registered to it since.
+ * In {@link ExecutionMode#PINNED} mode with more than one core, a balancer samples the load of every core
+ * and task each second, and migrates a task from the busiest to the idlest core
+ * when their loads differ by more than the {@link #getRebalanceThreshold() rebalance threshold}.
+ * Cores which the {@link Watchdog} has found stalled are skipped by both placement and the balancer.
+ * </p>
+ * <p>
+ * Besides repeating tasks, the scheduler runs one-shot, delayed and periodic actions.
+ * These share the deadline heap of the core they are scheduled on, and a one-shot action is
+ * unregistered by its core once it has run, without touching any other core.
+ * </p>
  */
 public class Scheduler {
+    /**
+     * Creates a new scheduler with one pinned core per available processor.
+     */
+    public Scheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new scheduler with pinned cores.
+     *
+     * @param parallelism Number of cores
+     */
+    public Scheduler(@Nonnegative int parallelism) {
+        this(parallelism, ExecutionMode.PINNED);
+    }
+
+    /**
+     * Creates a new scheduler.
+     * <p>
+     * In {@link ExecutionMode#PINNED} mode, {@code parallelism} cores each time and execute their own tasks.
+     * In {@link ExecutionMode#WORK_STEALING} mode, a single core times every task,
+     * and due tasks are executed on a work-stealing pool of {@code parallelism} workers.
+     * In {@link ExecutionMode#VIRTUAL} mode, a single core times every task,
+     * and each execution runs on its own virtual thread. {@code parallelism} is then unused.
+     * </p>
+     *
+     * @param parallelism Number of threads executing tasks
+     * @param mode        Execution mode of this scheduler
+     * @throws IllegalArgumentException When {@code parallelism} is not positive
+     */
+    public Scheduler(@Nonnegative int parallelism, @Nonnull ExecutionMode mode) throws IllegalArgumentException {
+        this(parallelism, mode, ParkingWaitStrategy::new);
+    }
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param parallelism  Number of threads executing tasks
+     * @param mode         Execution mode of this scheduler
+     * @param waitStrategy Supplier of the wait strategy of each core
+     * @throws IllegalArgumentException When {@code parallelism} is not positive
+     * @see #Scheduler(int, ExecutionMode)
+     */
+    public Scheduler(
+            @Nonnegative int parallelism,
+            @Nonnull ExecutionMode mode,
+            @Nonnull Supplier<WaitStrategy> waitStrategy
+    ) throws IllegalArgumentException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+
+        this.mode = mode;
+
+        switch (mode) {
+            case PINNED -> {
+                this.pool = null;
+                this.cores = new SchedulerCore[parallelism];
+
+                for (int i = 0; i < parallelism; i++) {
+                    cores[i] = new SchedulerCore("Scheduler-" + (i + 1), 0, null, waitStrategy.get());
+                }
+
+                this.balancer = parallelism > 1 ? new SchedulerCore("Scheduler-Balancer", 0) : null;
+            }
+            case WORK_STEALING -> {
+                this.pool = new ForkJoinPool(parallelism, p -> {
+                    final ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    t.setName("Scheduler-Worker-" + (t.getPoolIndex() + 1));
+                    return t;
+                }, null, true);
+                this.cores = new SchedulerCore[]{new SchedulerCore("Scheduler-1", 0, pool, waitStrategy.get())};
+                this.balancer = null;
+            }
+            case VIRTUAL -> {
+                this.pool = null;
+                this.cores = new SchedulerCore[]{
+                        new SchedulerCore("Scheduler-1", 0, SchedulerCore.VIRTUAL_EXECUTOR, waitStrategy.get())
+                };
+                this.balancer = null;
+            }
+            default -> throw new IllegalArgumentException("Unsupported execution mode: " + mode);
+        }
+
+        this.watchdog = new Watchdog(cores);
+
+        if (balancer != null) {
+            balancer.registerTask(new PreciseTask() {
+                @Override
+                public void execute(long delta) {
+                    rebalance();
+                }
+
+                @Override
+                public long intervalNanos() {
+                    return REBALANCE_INTERVAL;
+                }
+            });
+        }
+    }
+
     /**
      * Starts this scheduler.
      */
     public void start() {
         Arrays.stream(cores).forEach(SchedulerCore::start);
+        if (balancer != null) balancer.start();
+        watchdog.start();
     }
 
     /**
@@ -24,37 +152,242 @@ public class Scheduler {
      */
     public void stop() {
         Arrays.stream(cores).forEach(SchedulerCore::stop);
+        if (balancer != null) balancer.stop();
+        if (pool != null) pool.shutdown();
+        watchdog.stop();
+    }
+
+    /**
+     * Sets the clock of every core of this scheduler.
+     *
+     * @param clock Clock to use
+     * @throws IllegalStateException When this scheduler has already been started
+     * @see SchedulerCore#setClock(EngineClock)
+     */
+    public void setClock(@Nonnull EngineClock clock) throws IllegalStateException {
+        Arrays.stream(cores).forEach(c -> c.setClock(clock));
+        if (balancer != null) balancer.setClock(clock);
+    }
+
+    /**
+     * Gets the execution mode of this scheduler.
+     *
+     * @return {@link ExecutionMode}
+     */
+    @Nonnull
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the watchdog of this scheduler, which detects stalled task executions.
+     * The watchdog is disabled until its timeout is set.
+     *
+     * @return {@link Watchdog}
+     */
+    @Nonnull
+    public Watchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Gets the metrics of each core of this scheduler.
+     * Metrics of individual tasks are available from their {@link TaskHandle}.
+     *
+     * @return List of core metrics
+     */
+    @Nonnull
+    public List<TaskMetrics> getCoreMetrics() {
+        return Arrays.stream(cores).map(SchedulerCore::getMetrics).toList();
+    }
+
+    /**
+     * Gets the wake-up latency of each core of this scheduler.
+     *
+     * @return List of wake-up latency histograms in nanoseconds
+     * @see SchedulerCore#getWakeupLatency()
+     */
+    @Nonnull
+    public List<Histogram> getCoreWakeupLatencies() {
+        return Arrays.stream(cores).map(SchedulerCore::getWakeupLatency).toList();
+    }
+
+    /**
+     * Gets the difference in load between the busiest and the idlest core above which tasks are migrated.
+     *
+     * @return Rebalance threshold
+     */
+    @Nonnegative
+    public double getRebalanceThreshold() {
+        return rebalanceThreshold;
+    }
+
+    /**
+     * Sets the difference in load between the busiest and the idlest core above which tasks are migrated.
+     *
+     * @param rebalanceThreshold Rebalance threshold in the range of {@code [0, 1]}
+     */
+    public void setRebalanceThreshold(@Nonnegative double rebalanceThreshold) {
+        this.rebalanceThreshold = rebalanceThreshold;
+    }
+
+    /**
+     * Sets whether the cores of this scheduler emit a JFR event for each task execution.
+     *
+     * @param jfrEnabled {@code true} to emit JFR events
+     */
+    public void setJfrEnabled(boolean jfrEnabled) {
+        Arrays.stream(cores).forEach(c -> c.setJfrEnabled(jfrEnabled));
+    }
+
+    /**
+     * Sets the frame budget of every core of this scheduler.
+     *
+     * @param budget Budget per frame in nanoseconds
+     * @param frame  Length of a frame in nanoseconds
+     * @throws IllegalArgumentException When the frame length is not positive
+     * @see SchedulerCore#setFrameBudget(long, long)
+     */
+    public void setFrameBudget(@Nonnegative long budget, @Nonnegative long frame) throws IllegalArgumentException {
+        Arrays.stream(cores).forEach(c -> c.setFrameBudget(budget, frame));
     }
 
     /**
      * Registers a task to this scheduler.
      *
      * @param task Task to register
+     * @return Handle of the task
      */
-    public void registerTask(@Nonnull Task task) {
-        cores[distributor.next()].registerTask(task);
+    @Nonnull
+    public TaskHandle registerTask(@Nonnull Task task) {
+        return registerTask((PreciseTask) task);
+    }
+
+    /**
+     * Registers a precise task to this scheduler.
+     *
+     * @param task Task to register
+     * @return Handle of the task
+     */
+    @Nonnull
+    public TaskHandle registerTask(@Nonnull PreciseTask task) {
+        return cores[nextCore()].registerTask(task);
+    }
+
+    /**
+     * Schedules an action to run once after a delay.
+     *
+     * @param delay  Delay until the action runs
+     * @param action Action to run
+     * @return Handle of the scheduled action, which can be used to cancel it
+     */
+    @Nonnull
+    public TaskHandle schedule(@Nonnull Duration delay, @Nonnull Runnable action) {
+        return cores[nextCore()].registerTask(d -> action.run(), toNanos(delay), SchedulerCore.Timing.ONCE);
+    }
+
+    /**
+     * Submits an action to run once as soon as possible.
+     *
+     * @param action Action to run
+     * @param <T>    Type of result
+     * @return Future of the action's result. Cancelling the future cancels the action if it has not run yet.
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> submit(@Nonnull Callable<T> action) {
+        return submit(Duration.ZERO, action);
+    }
+
+    /**
+     * Submits an action to run once after a delay.
+     *
+     * @param delay  Delay until the action runs
+     * @param action Action to run
+     * @param <T>    Type of result
+     * @return Future of the action's result. Cancelling the future cancels the action if it has not run yet.
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> submit(@Nonnull Duration delay, @Nonnull Callable<T> action) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        final TaskHandle handle = schedule(delay, () -> {
+            try {
+                future.complete(action.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) handle.cancel();
+        });
+
+        return future;
+    }
+
+    /**
+     * Schedules an action to run repeatedly at a fixed rate.
+     * Executions are spaced one period apart from the first execution, regardless of how long each one takes.
+     *
+     * @param initialDelay Delay until the first execution
+     * @param period       Time between the starts of two executions
+     * @param action       Action to run
+     * @return Handle of the scheduled action, which can be used to cancel it
+     */
+    @Nonnull
+    public TaskHandle scheduleAtFixedRate(
+            @Nonnull Duration initialDelay,
+            @Nonnull Duration period,
+            @Nonnull Runnable action
+    ) {
+        return cores[nextCore()].registerTask(
+                periodic(toNanos(period), action), toNanos(initialDelay), SchedulerCore.Timing.FIXED_RATE
+        );
+    }
+
+    /**
+     * Schedules an action to run repeatedly with a fixed delay.
+     * Each execution is due one delay after the previous one has finished, so the time each execution takes
+     * and any lateness accumulate, unlike {@link #scheduleAtFixedRate(Duration, Duration, Runnable)}.
+     *
+     * @param initialDelay Delay until the first execution
+     * @param delay        Time between the end of an execution and the start of the next
+     * @param action       Action to run
+     * @return Handle of the scheduled action, which can be used to cancel it
+     */
+    @Nonnull
+    public TaskHandle scheduleWithFixedDelay(
+            @Nonnull Duration initialDelay,
+            @Nonnull Duration delay,
+            @Nonnull Runnable action
+    ) {
+        return cores[nextCore()].registerTask(
+                periodic(toNanos(delay), action), toNanos(initialDelay), SchedulerCore.Timing.FIXED_DELAY
+        );
     }
 
     /**
      * Registers multiple tasks to this scheduler.
      * Tasks will be registered to a single core.
+     * In {@link ExecutionMode#WORK_STEALING} mode, this only shares their timing, not their execution thread.
      *
      * @param tasks Tasks to register
      */
     public void registerSyncTasks(@Nonnull Task... tasks) {
-        final int i = distributor.next();
+        final int i = nextCore();
         Arrays.stream(tasks).forEach(cores[i]::registerTask);
     }
 
     /**
      * Registers multiple tasks to this scheduler.
      * Tasks will be registered to a single core.
+     * In {@link ExecutionMode#WORK_STEALING} mode, this only shares their timing, not their execution thread.
      *
      * @param tasks Collection of tasks to register
      */
-    public void registerSyncTasks(@Nonnull Collection<Task> tasks) {
-        final int i = distributor.next();
-        tasks.forEach(cores[i]::registerTask);
+    public void registerSyncTasks(@Nonnull Collection<? extends PreciseTask> tasks) {
+        final int i = nextCore();
+        tasks.forEach(t -> cores[i].registerTask(t));
     }
 
     /**
@@ -73,16 +406,27 @@ public class Scheduler {
      *
      * @param tasks Collection of tasks to register
      */
-    public void registerAsyncTasks(@Nonnull Collection<Task> tasks) {
-        tasks.forEach(this::registerTask);
+    public void registerAsyncTasks(@Nonnull Collection<? extends PreciseTask> tasks) {
+        tasks.forEach(t -> registerTask(t));
+    }
+
+    /**
+     * Unregisters a task from this scheduler using its handle.
+     * This only touches the core the task is registered to.
+     *
+     * @param handle Handle of the task to unregister
+     */
+    public void unregisterTask(@Nonnull TaskHandle handle) {
+        handle.cancel();
     }
 
     /**
      * Unregisters a task from this scheduler.
+     * Prefer {@link #unregisterTask(TaskHandle)} when the handle is available.
      *
      * @param task Task to unregister
      */
-    public void unregisterTask(@Nonnull Task task) {
+    public void unregisterTask(@Nonnull PreciseTask task) {
         Arrays.stream(cores).forEach(c -> c.unregisterTask(task));
     }
 
@@ -91,7 +435,7 @@ public class Scheduler {
      *
      * @param tasks Tasks to unregister
      */
-    public void unregisterTasks(@Nonnull Task... tasks) {
+    public void unregisterTasks(@Nonnull PreciseTask... tasks) {
         Arrays.stream(tasks).forEach(this::unregisterTask);
     }
 
@@ -100,19 +444,140 @@ public class Scheduler {
      *
      * @param tasks Collection of tasks to unregister
      */
-    public void unregisterTasks(@Nonnull Collection<Task> tasks) {
+    public void unregisterTasks(@Nonnull Collection<? extends PreciseTask> tasks) {
         tasks.forEach(this::unregisterTask);
     }
 
-    private final SchedulerCore[] cores = {
-            new SchedulerCore("Scheduler-1", 1),
-            new SchedulerCore("Scheduler-2", 1),
-            new SchedulerCore("Scheduler-3", 1),
-            new SchedulerCore("Scheduler-4", 1),
-            new SchedulerCore("Scheduler-5", 1),
-            new SchedulerCore("Scheduler-6", 1),
-            new SchedulerCore("Scheduler-7", 1),
-            new SchedulerCore("Scheduler-8", 1)
-    };
-    private final Counter distributor = new Counter(cores.length);
+    /**
+     * Gets the index of the core to register the next task to.
+     * This is the core with the lowest estimated load, or the fewest tasks if loads are equal.
+     * Cores which are {@link SchedulerCore#isStalled() stalled} are skipped, unless every core is stalled.
+     * Loads are only sampled by the balancer, so each task registered to a core since its last sample
+     * is estimated to add the mean load of a sampled task. This spreads a burst of registrations
+     * instead of placing all of it on the core which was idlest at the last sample.
+     *
+     * @return Index of core
+     */
+    private int nextCore() {
+        if (cores.length == 1) return 0;
+
+        double load = 0;
+        long sampled = 0;
+
+        for (SchedulerCore core : cores) {
+            load += core.getLoad();
+            sampled += core.getSampledTaskCount();
+        }
+
+        final double perTask = sampled == 0 ? 0 : load / sampled;
+
+        int best = -1;
+        double bestLoad = 0;
+
+        for (int i = 0; i < cores.length; i++) {
+            if (cores[i].isStalled()) continue;
+
+            final double l = estimateLoad(cores[i], perTask);
+            final int c = best < 0 ? -1 : Double.compare(l, bestLoad);
+
+            if (c < 0 || (c == 0 && cores[i].getTaskCount() < cores[best].getTaskCount())) {
+                best = i;
+                bestLoad = l;
+            }
+        }
+
+        return Math.max(best, 0);
+    }
+
+    /**
+     * Estimates the current load of a core from its last sample and the tasks registered to it since.
+     *
+     * @param core    Core to estimate the load of
+     * @param perTask Estimated load of each task registered since the sample
+     * @return Estimated load
+     */
+    @Nonnegative
+    private static double estimateLoad(@Nonnull SchedulerCore core, @Nonnegative double perTask) {
+        return core.getLoad() + Math.max(core.getTaskCount() - core.getSampledTaskCount(), 0) * perTask;
+    }
+
+    /**
+     * Creates a task which runs an action in a fixed interval.
+     *
+     * @param interval Interval in nanoseconds
+     * @param action   Action to run
+     * @return Task of the action
+     */
+    @Nonnull
+    private static PreciseTask periodic(@Nonnegative long interval, @Nonnull Runnable action) {
+        return new PreciseTask() {
+            @Override
+            public void execute(long delta) {
+                action.run();
+            }
+
+            @Override
+            public long intervalNanos() {
+                return interval;
+            }
+        };
+    }
+
+    /**
+     * Converts a duration to nanoseconds.
+     *
+     * @param duration Duration to convert
+     * @return Nanoseconds of the duration, or {@code 0} if it is negative
+     */
+    @Nonnegative
+    private static long toNanos(@Nonnull Duration duration) {
+        return Math.max(duration.getMillis(), 0) * 1_000_000;
+    }
+
+    /**
+     * Samples the load of every core and task, then migrates a task if the loads are skewed.
+     * The migrated task is the one whose load is closest to half of the skew.
+     * Stalled cores are left out, as they neither hand over tasks nor execute the tasks they receive.
+     */
+    private void rebalance() {
+        final long now = System.nanoTime();
+
+        for (SchedulerCore core : cores) {
+            core.sampleLoad(now);
+            core.getHandles().forEach(h -> h.sampleLoad(now));
+        }
+
+        final List<SchedulerCore> healthy = Arrays.stream(cores).filter(c -> !c.isStalled()).toList();
+        if (healthy.size() < 2) return;
+
+        final Comparator<SchedulerCore> byLoad = Comparator.comparingDouble(SchedulerCore::getLoad);
+        final SchedulerCore busiest = healthy.stream().max(byLoad).orElseThrow();
+        final SchedulerCore idlest = healthy.stream().min(byLoad).orElseThrow();
+
+        final double skew = busiest.getLoad() - idlest.getLoad();
+        if (skew <= rebalanceThreshold) return;
+
+        busiest.getHandles().stream()
+                .filter(h -> h.getLoad() > 0 && h.getLoad() < skew)
+                .min(Comparator.comparingDouble(h -> Math.abs(skew / 2 - h.getLoad())))
+                .ifPresent(h -> busiest.migrateTask(h, idlest));
+    }
+
+    /**
+     * The interval of the balancer in nanoseconds.
+     */
+    private static final long REBALANCE_INTERVAL = 1_000_000_000;
+
+    @Nonnull
+    private final ExecutionMode mode;
+    @Nonnull
+    private final SchedulerCore[] cores;
+    @Nullable
+    private final ForkJoinPool pool;
+    @Nullable
+    private final SchedulerCore balancer;
+    @Nonnull
+    private final Watchdog watchdog;
+    @Nonnegative
+    private volatile double rebalanceThreshold = 0.25;
 }
@@ -1,64 +1,162 @@
 package civitas.celestis.task.lifecycle;
 
+import civitas.celestis.task.PreciseTask;
+import civitas.celestis.task.ResumableTask;
 import civitas.celestis.task.Task;
-import org.joda.time.DateTime;
-import org.joda.time.Duration;
+import civitas.celestis.util.Histogram;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * <h2>SchedulerCore</h2>
- * <p>The internal core of a {@link Scheduler}.</p>
+ * <p>
+ * The internal core of a {@link Scheduler}.
+ * Tasks are kept in a deadline heap, and the core's thread waits until the earliest deadline
+ * using its {@link WaitStrategy}.
+ * Each pass only touches tasks which are due, regardless of how many tasks are registered.
+ * </p>
+ * <p>
+ * If the core is given an executor, due tasks are dispatched to it instead of being executed inline.
+ * A dispatched task is not timed again until its execution has finished.
+ * {@link PreciseTask#blocking() Blocking} tasks are always dispatched to virtual threads.
+ * </p>
+ * <p>
+ * When a task has missed deadlines, it is executed following its {@link PreciseTask#overloadPolicy() overload policy},
+ * which bounds how much time a single pass may account for.
+ * </p>
+ * <p>
+ * Every execution is measured into the {@link TaskMetrics} of the task's handle and of the core.
+ * When JFR recording is enabled, a {@link TaskExecutionEvent} is also emitted per execution.
+ * </p>
+ * <p>
+ * Time is read from the core's {@link EngineClock}, which defaults to the system clock.
+ * Execution times are always measured in real time.
+ * </p>
+ * <p>
+ * {@link ResumableTask Resumable tasks} are given a time slice per execution,
+ * and share a {@link #setFrameBudget(long, long) frame budget} which limits how much of each frame they may use.
+ * </p>
+ * <p>
+ * Tasks can be migrated to another core. A migrated task keeps its timing, so its next delta
+ * is still measured from its last execution on the previous core.
+ * </p>
  */
 public final class SchedulerCore {
     /**
      * Creates a new scheduler core.
      *
      * @param name     Name of this core
-     * @param accuracy Accuracy of this core in milliseconds
+     * @param accuracy Accuracy of this core in milliseconds (the minimum wait between two passes)
      */
-    @SuppressWarnings("BusyWait")
     public SchedulerCore(@Nonnull String name, @Nonnegative long accuracy) {
-        this.tasks = new ArrayList<>();
-        this.previousTimes = new HashMap<>();
-        this.thread = new Thread(() -> {
-            while (true) {
-                List.copyOf(tasks).forEach(t -> {
-                    // Cache current time for consistency
-                    final DateTime now = DateTime.now();
-                    final DateTime previous = previousTimes.getOrDefault(t, now);
-                    final Duration delta = new Duration(previous, now);
-
-                    // Respect interval
-                    if (delta.isShorterThan(t.interval())) return;
-
-                    // Execute task and keep time
-                    t.execute(delta);
-                    previousTimes.put(t, now);
-                });
-
-                try {
-                    Thread.sleep(accuracy);
-                } catch (InterruptedException e) {
-                    return;
-                }
-            }
-        }, name);
+        this(name, accuracy, null);
+    }
+
+    /**
+     * Creates a new scheduler core.
+     *
+     * @param name     Name of this core
+     * @param accuracy Accuracy of this core in milliseconds (the minimum wait between two passes)
+     * @param executor Executor to dispatch due tasks to, or {@code null} to execute them on this core
+     */
+    public SchedulerCore(@Nonnull String name, @Nonnegative long accuracy, @Nullable Executor executor) {
+        this(name, accuracy, executor, new ParkingWaitStrategy());
+    }
+
+    /**
+     * Creates a new scheduler core.
+     *
+     * @param name         Name of this core
+     * @param accuracy     Accuracy of this core in milliseconds (the minimum wait between two passes)
+     * @param executor     Executor to dispatch due tasks to, or {@code null} to execute them on this core
+     * @param waitStrategy Strategy to wait between passes with
+     */
+    public SchedulerCore(
+            @Nonnull String name,
+            @Nonnegative long accuracy,
+            @Nullable Executor executor,
+            @Nonnull WaitStrategy waitStrategy
+    ) {
+        this.accuracy = accuracy * 1_000_000;
+        this.executor = executor;
+        this.waitStrategy = waitStrategy;
+        this.wakeupLatency = new Histogram();
+        this.heap = new PriorityQueue<>(Comparator.comparingLong(e -> e.deadline));
+        this.inbox = new ConcurrentLinkedQueue<>();
+        this.entries = new ConcurrentHashMap<>();
+        this.migrations = new ConcurrentLinkedQueue<>();
+        this.tombstones = new AtomicInteger();
+        this.signal = () -> !inbox.isEmpty() || !migrations.isEmpty();
+        this.metrics = new TaskMetrics();
+        this.thread = new Thread(this::run, name);
     }
 
     /**
      * Registers a task to this scheduler core.
      *
      * @param task Task to register
+     * @return Handle of the task
      */
-    public void registerTask(@Nonnull Task task) {
-        tasks.add(task);
-        previousTimes.put(task, DateTime.now());
+    @Nonnull
+    public TaskHandle registerTask(@Nonnull Task task) {
+        return registerTask((PreciseTask) task);
+    }
+
+    /**
+     * Registers a precise task to this scheduler core.
+     * Registering a task which is already registered to this core returns its existing handle.
+     *
+     * @param task Task to register
+     * @return Handle of the task
+     */
+    @Nonnull
+    public TaskHandle registerTask(@Nonnull PreciseTask task) {
+        return registerTask(task, intervalOf(task), Timing.INTERVAL);
+    }
+
+    /**
+     * Registers a precise task to this scheduler core with a given initial delay and timing.
+     * Registering a task which is already registered to this core returns its existing handle.
+     *
+     * @param task   Task to register
+     * @param delay  Nanoseconds until the first execution
+     * @param timing How the task's later deadlines are computed
+     * @return Handle of the task
+     */
+    @Nonnull
+    TaskHandle registerTask(@Nonnull PreciseTask task, @Nonnegative long delay, @Nonnull Timing timing) {
+        final Entry entry = new Entry(
+                new TaskHandle(task, this),
+                task.blocking() ? VIRTUAL_EXECUTOR : executor,
+                timing,
+                clock.nanoTime(),
+                delay
+        );
+
+        final Entry existing = entries.putIfAbsent(task, entry);
+        if (existing != null) return existing.handle;
+
+        inbox.add(entry);
+        LockSupport.unpark(thread);
+
+        return entry.handle;
     }
 
     /**
@@ -66,8 +164,292 @@ public final class SchedulerCore {
      *
      * @param task Task to unregister
      */
-    public void unregisterTask(@Nonnull Task task) {
-        if (tasks.remove(task)) previousTimes.remove(task);
+    public void unregisterTask(@Nonnull PreciseTask task) {
+        final Entry entry = entries.remove(task);
+        if (entry == null) return;
+
+        entry.handle.cancelled = true;
+        tombstones.incrementAndGet();
+    }
+
+    /**
+     * Unregisters the task of a handle from this scheduler core.
+     * Nothing is unregistered if the task has since been registered again under a different handle.
+     *
+     * @param handle Handle of the task to unregister
+     */
+    void unregisterTask(@Nonnull TaskHandle handle) {
+        final Entry entry = entries.get(handle.getTask());
+        if (entry != null && entry.handle == handle && entries.remove(handle.getTask(), entry)) {
+            tombstones.incrementAndGet();
+        }
+
+        handle.cancelled = true;
+    }
+
+    /**
+     * Requests a task to be migrated to another core.
+     * The migration is performed by this core's thread, and is skipped if the task is currently executing
+     * on another thread, or is already registered to the target core.
+     *
+     * @param handle Handle of the task to migrate
+     * @param target Core to migrate the task to
+     */
+    void migrateTask(@Nonnull TaskHandle handle, @Nonnull SchedulerCore target) {
+        migrations.add(new Migration(handle, target));
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Adopts an entry migrated from another core.
+     *
+     * @param e Entry to adopt
+     * @return {@code true} if the entry was adopted
+     */
+    private boolean adopt(@Nonnull Entry e) {
+        if (entries.putIfAbsent(e.task, e) != null) return false;
+
+        inbox.add(e);
+        LockSupport.unpark(thread);
+
+        return true;
+    }
+
+    /**
+     * Gets the executions of this core which have been running for longer than a timeout,
+     * and have not been reported yet. Each execution is only returned once.
+     *
+     * @param now     Current time in nanoseconds, as measured by {@link System#nanoTime()}
+     * @param timeout Timeout in nanoseconds
+     * @return List of stalled executions
+     */
+    @Nonnull
+    List<Execution> getStalledExecutions(long now, @Nonnegative long timeout) {
+        final List<Execution> stalled = new ArrayList<>();
+
+        for (Entry e : entries.values()) {
+            final Thread runner = e.runner;
+            if (runner == null || e.reported || now - e.startedAt <= timeout) continue;
+
+            e.reported = true;
+            stalled.add(new Execution(e.handle, runner, e.startedAt));
+        }
+
+        return stalled;
+    }
+
+    /**
+     * Marks this core as stalled by one of its executions, which is blocking the core's thread.
+     * The mark is cleared once the execution finishes, or right away if it has already finished.
+     *
+     * @param execution Execution stalling this core
+     */
+    void markStalled(@Nonnull Execution execution) {
+        stalled = true;
+
+        final Entry e = entries.get(execution.handle().getTask());
+        if (e == null || e.runner != execution.thread() || e.startedAt != execution.start()) stalled = false;
+    }
+
+    /**
+     * Checks if this core's thread is stuck in an execution which the watchdog has reported.
+     * A stalled core does not execute its other tasks, so no tasks should be placed on it.
+     *
+     * @return {@code true} if this core is stalled
+     */
+    boolean isStalled() {
+        return stalled;
+    }
+
+    /**
+     * Checks if a thread is the thread of this core.
+     *
+     * @param t Thread to check
+     * @return {@code true} if the thread is this core's thread
+     */
+    boolean isCoreThread(@Nonnull Thread t) {
+        return t == thread;
+    }
+
+    /**
+     * Moves every task of this core which is not currently executing to other cores.
+     * This is done without the cooperation of this core's thread, so that tasks can be rescued
+     * while it is stuck. It is best-effort: if the thread resumes during the evacuation,
+     * a task may be executed once by both cores.
+     *
+     * @param targets Supplier of the core to move each task to, or {@code null} to stop moving tasks
+     * @return Number of tasks moved
+     */
+    @Nonnegative
+    int evacuate(@Nonnull Supplier<SchedulerCore> targets) {
+        int moved = 0;
+
+        for (Entry e : entries.values()) {
+            if (e.runner != null || e.dispatched) continue;
+
+            final SchedulerCore target = targets.get();
+            if (target == null || target == this) break;
+
+            final Entry copy = new Entry(e.handle, e.executor, e.timing, e.previous, e.deadline - e.previous);
+            if (!target.adopt(copy)) continue;
+
+            entries.remove(e.task, e);
+            e.evacuated = true;
+            e.handle.core = target;
+            moved++;
+        }
+
+        return moved;
+    }
+
+    /**
+     * Gets the handles of every task registered to this core.
+     *
+     * @return List of handles
+     */
+    @Nonnull
+    List<TaskHandle> getHandles() {
+        return entries.values().stream().map(e -> e.handle).toList();
+    }
+
+    /**
+     * Gets the name of this core.
+     *
+     * @return Name
+     */
+    @Nonnull
+    public String getName() {
+        return thread.getName();
+    }
+
+    /**
+     * Gets the number of tasks registered to this core.
+     *
+     * @return Number of tasks
+     */
+    @Nonnegative
+    public int getTaskCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the utilization of this core, as last sampled by {@link #sampleLoad(long)}.
+     *
+     * @return Fraction of time spent executing tasks
+     */
+    @Nonnegative
+    public double getLoad() {
+        return load;
+    }
+
+    /**
+     * Gets the number of tasks which were registered to this core when its load was last sampled.
+     *
+     * @return Number of sampled tasks
+     */
+    @Nonnegative
+    int getSampledTaskCount() {
+        return sampledTasks;
+    }
+
+    /**
+     * Samples the utilization of this core since the last sample.
+     *
+     * @param now Current time in nanoseconds
+     * @return Fraction of time spent executing tasks
+     */
+    @Nonnegative
+    double sampleLoad(long now) {
+        final long busy = metrics.getExecutionTime().getSum();
+
+        if (sampledAt != 0 && now > sampledAt) {
+            load = Math.max(0, (double) (busy - sampledBusy) / (now - sampledAt));
+        }
+
+        sampledAt = now;
+        sampledBusy = busy;
+        sampledTasks = entries.size();
+
+        return load;
+    }
+
+    /**
+     * Gets the metrics of every task executed by this core.
+     *
+     * @return {@link TaskMetrics}
+     */
+    @Nonnull
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the histogram of wake-up latencies of this core, which is how late its waits returned
+     * compared to the deadline they were waiting for. Waits ended early by new work are not recorded.
+     *
+     * @return Wake-up latency histogram in nanoseconds
+     */
+    @Nonnull
+    public Histogram getWakeupLatency() {
+        return wakeupLatency;
+    }
+
+    /**
+     * Sets whether this core emits a JFR event for each task execution.
+     *
+     * @param jfrEnabled {@code true} to emit JFR events
+     */
+    public void setJfrEnabled(boolean jfrEnabled) {
+        this.jfrEnabled = jfrEnabled;
+    }
+
+    /**
+     * Sets the frame budget of this core, which is the most time {@link ResumableTask resumable tasks}
+     * may run per frame in total. Each execution is charged the time it actually ran,
+     * so time left of an early return is given to other tasks, and an overrun is taken from the frame.
+     * Once the budget of a frame is used up, resumable tasks are deferred to the next frame.
+     * Other tasks are not affected.
+     *
+     * @param budget Budget per frame in nanoseconds
+     * @param frame  Length of a frame in nanoseconds
+     * @throws IllegalArgumentException When the frame length is not positive
+     */
+    public void setFrameBudget(@Nonnegative long budget, @Nonnegative long frame) throws IllegalArgumentException {
+        if (frame <= 0) {
+            throw new IllegalArgumentException("Frame length must be positive.");
+        }
+
+        this.frameBudget = budget;
+        this.frameNanos = frame;
+    }
+
+    /**
+     * Gets the clock of this core.
+     *
+     * @return {@link EngineClock}
+     */
+    @Nonnull
+    public EngineClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock of this core. Tasks which are already registered are timed from the new clock's current time.
+     *
+     * @param clock Clock to use
+     * @throws IllegalStateException When this core has already been started
+     */
+    public void setClock(@Nonnull EngineClock clock) throws IllegalStateException {
+        if (thread.getState() != Thread.State.NEW) {
+            throw new IllegalStateException("Cannot change the clock of a core which has been started.");
+        }
+
+        this.clock.deregister();
+        clock.register();
+        this.clock = clock;
+
+        final long now = clock.nanoTime();
+        inbox.forEach(e -> e.restart(now));
     }
 
     /**
@@ -84,7 +466,470 @@ public final class SchedulerCore {
         thread.interrupt();
     }
 
-    private final List<Task> tasks;
-    private final Map<Task, DateTime> previousTimes;
+    /**
+     * The main loop of this core.
+     */
+    private void run() {
+        try {
+            loop();
+        } finally {
+            clock.deregister();
+        }
+    }
+
+    /**
+     * Executes due tasks and waits for the next deadline until this core is stopped.
+     */
+    private void loop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            // Move newly registered and returning tasks into the heap
+            for (Entry e = inbox.poll(); e != null; e = inbox.poll()) {
+                if (e.dispatched) {
+                    e.dispatched = false;
+                    clock.end();
+                    if (e.task instanceof ResumableTask) settle(e);
+                }
+
+                if (e.isRetired()) {
+                    entries.remove(e.task, e);
+                    continue;
+                }
+
+                heap.add(e);
+            }
+
+            // Purge cancelled entries once they make up most of the heap
+            if (tombstones.get() > PURGE_THRESHOLD && tombstones.get() > heap.size() / 2) {
+                tombstones.set(0);
+                heap.removeIf(Entry::isRetired);
+            }
+
+            // Hand over migrating tasks
+            for (Migration m = migrations.poll(); m != null; m = migrations.poll()) {
+                final Entry e = entries.get(m.handle().getTask());
+                if (e == null || e.handle != m.handle() || m.target() == this) continue;
+
+                if (!heap.remove(e)) continue;
+                if (!m.target().adopt(e)) {
+                    heap.add(e);
+                    continue;
+                }
+
+                entries.remove(e.task, e);
+                e.handle.core = m.target();
+            }
+
+            // Execute due tasks only
+            final long now = clock.nanoTime();
+            while (!heap.isEmpty() && heap.peek().deadline - now <= 0) {
+                final Entry e = heap.poll();
+                if (e.isRetired()) {
+                    entries.remove(e.task, e);
+                    continue;
+                }
+
+                if (e.task instanceof ResumableTask) {
+                    e.slice = grant(e, now);
+
+                    if (e.slice <= 0) {
+                        // The frame budget is used up, so resume in the next frame
+                        e.deadline = frameStart + frameNanos;
+                        heap.add(e);
+                        continue;
+                    }
+                }
+
+                if (e.executor != null) {
+                    e.dispatched = true;
+                    clock.begin();
+                    e.executor.execute(() -> dispatch(e, now));
+                    continue;
+                }
+
+                execute(e, now);
+                e.reschedule(now, clock);
+                if (e.task instanceof ResumableTask) settle(e);
+
+                if (e.isRetired()) {
+                    entries.remove(e.task, e);
+                } else {
+                    heap.add(e);
+                }
+            }
+
+            // Wait until the next deadline, or until new work arrives
+            final Entry next = heap.peek();
+            final long passed = clock.nanoTime();
+            final long deadline = next == null
+                    ? passed + IDLE_TIMEOUT
+                    : passed + Math.max(next.deadline - passed, accuracy);
+
+            clock.await(deadline, signal, waitStrategy);
+
+            // Measure how late the wait returned
+            final long woken = clock.nanoTime();
+            if (next != null && woken - deadline >= 0) wakeupLatency.record(woken - deadline);
+        }
+    }
+
+    /**
+     * Executes an entry following the overload policy of its task, and records its metrics.
+     *
+     * @param e   Entry to execute
+     * @param now Time at which the entry was found to be due in nanoseconds
+     */
+    private void execute(@Nonnull Entry e, long now) {
+        final TaskExecutionEvent event = jfrEnabled ? new TaskExecutionEvent() : null;
+        if (event != null) event.begin();
+
+        final long start = System.nanoTime();
+        final long jitter = clock.nanoTime() - e.deadline;
+
+        e.startedAt = start;
+        e.reported = false;
+        e.runner = Thread.currentThread();
+        final long interval = intervalOf(e.task);
+        final long missed = e.timing != Timing.ONCE && jitter >= interval ? jitter / interval : 0;
+        final long delta = now - e.previous;
+
+        long dropped = 0;
+
+        try {
+            if (e.task instanceof ResumableTask r) {
+                if (r.resume(delta, start + e.slice)) unregisterTask(e.handle);
+            } else if (missed == 0) {
+                e.task.execute(delta);
+            } else {
+                dropped = executeOverloaded(e.task, delta, interval, missed);
+            }
+        } finally {
+            e.runner = null;
+            if (e.reported && Thread.currentThread() == thread) stalled = false;
+
+            final long time = System.nanoTime() - start;
+            final boolean overrun = time > interval;
+            e.used = time;
+
+            if (e.timing == Timing.ONCE) unregisterTask(e.handle);
+
+            e.handle.getMetrics().record(jitter, time, missed, dropped, overrun);
+            metrics.record(jitter, time, missed, dropped, overrun);
+
+            if (event != null) {
+                event.end();
+
+                if (event.shouldCommit()) {
+                    event.core = thread.getName();
+                    event.task = e.task.toString();
+                    event.jitter = jitter;
+                    event.missed = missed;
+                    event.dropped = dropped;
+                    event.overrun = overrun;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Grants a time slice to a resumable task from the budget of the current frame.
+     * The slice is reserved until the execution has finished and is {@link #settle(Entry) settled}.
+     *
+     * @param e   Entry of the task to grant a slice to
+     * @param now Current time in nanoseconds
+     * @return Time slice in nanoseconds, or {@code 0} if the frame budget is used up
+     */
+    @Nonnegative
+    private long grant(@Nonnull Entry e, long now) {
+        if (now - frameStart >= frameNanos) {
+            frameStart = now;
+            frameUsed = 0;
+        }
+
+        final long slice = Math.max(Math.min(((ResumableTask) e.task).sliceNanos(), frameBudget - frameUsed), 0);
+        frameUsed += slice;
+        e.frame = frameStart;
+
+        return slice;
+    }
+
+    /**
+     * Charges the frame budget with the time a resumable task actually used, instead of the slice it was granted.
+     * Time left of the slice is returned to the frame, and time used beyond it is charged.
+     * If a new frame has started since the slice was granted, only the time beyond the slice is charged to it.
+     *
+     * @param e Entry of the task which has finished executing
+     */
+    private void settle(@Nonnull Entry e) {
+        final long overrun = e.used - e.slice;
+        frameUsed += e.frame == frameStart ? overrun : Math.max(overrun, 0);
+    }
+
+    /**
+     * Executes a task which has missed deadlines, following its overload policy.
+     *
+     * @param task     Task to execute
+     * @param delta    Nanoseconds between the last execution and now
+     * @param interval Interval of the task in nanoseconds
+     * @param missed   Number of missed deadlines
+     * @return Number of missed executions which were dropped
+     */
+    @Nonnegative
+    private static long executeOverloaded(@Nonnull PreciseTask task, long delta, long interval, long missed) {
+        final long maxDelta = Math.max(task.maxDeltaNanos(), 1);
+
+        switch (task.overloadPolicy()) {
+            case COALESCE -> {
+                final long d = Math.min(delta, maxDelta);
+                task.execute(d);
+                return (delta - d) / interval;
+            }
+            case CATCH_UP -> {
+                final long runs = Math.min(missed + 1, Math.max(maxDelta / interval, 1));
+
+                for (long i = 1; i < runs; i++) task.execute(interval);
+
+                if (runs == missed + 1) {
+                    // The last run takes the remainder, so no time is lost
+                    task.execute(delta - (runs - 1) * interval);
+                    return 0;
+                }
+
+                task.execute(interval);
+                return missed + 1 - runs;
+            }
+            case DROP -> {
+                task.execute(interval);
+                return missed;
+            }
+            default -> throw new IllegalStateException("Unsupported overload policy: " + task.overloadPolicy());
+        }
+    }
+
+    /**
+     * Executes an entry on the executor's thread, then hands it back to this core.
+     *
+     * @param e   Entry to execute
+     * @param now Time at which the entry was dispatched in nanoseconds
+     */
+    private void dispatch(@Nonnull Entry e, long now) {
+        try {
+            execute(e, now);
+        } finally {
+            e.reschedule(now, clock);
+            inbox.add(e);
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Gets the interval of a task, raised to {@link #MIN_INTERVAL} so that a task never keeps its core spinning.
+     *
+     * @param task Task to get the interval of
+     * @return Interval in nanoseconds
+     */
+    @Nonnegative
+    private static long intervalOf(@Nonnull PreciseTask task) {
+        return Math.max(task.intervalNanos(), MIN_INTERVAL);
+    }
+
+    /**
+     * The executor shared by every core for running tasks on virtual threads.
+     */
+    @Nonnull
+    static final ExecutorService VIRTUAL_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Scheduler-Virtual-", 1).factory());
+
+    /**
+     * The shortest interval of a task in nanoseconds. Shorter intervals are raised to this.
+     */
+    private static final long MIN_INTERVAL = 1_000;
+
+    /**
+     * The longest time a core waits when it has no tasks, in nanoseconds.
+     */
+    private static final long IDLE_TIMEOUT = 1_000_000_000;
+
+    /**
+     * The default length of a frame for budgeting resumable tasks, in nanoseconds.
+     */
+    private static final long DEFAULT_FRAME = 16_666_667;
+
+    /**
+     * The number of cancelled entries below which the heap is never purged.
+     * Cancelled entries are otherwise dropped lazily once their deadline is reached.
+     */
+    private static final int PURGE_THRESHOLD = 64;
+
+    @Nonnegative
+    private final long accuracy;
+    @Nullable
+    private final Executor executor;
+    @Nonnull
+    private final PriorityQueue<Entry> heap;
+    @Nonnull
+    private final Queue<Entry> inbox;
+    @Nonnull
+    private final Map<PreciseTask, Entry> entries;
+    @Nonnull
+    private final Queue<Migration> migrations;
+    @Nonnull
+    private final AtomicInteger tombstones;
+    @Nonnull
+    private final TaskMetrics metrics;
+    @Nonnull
+    private final WaitStrategy waitStrategy;
+    @Nonnull
+    private final BooleanSupplier signal;
+    @Nonnull
+    private final Histogram wakeupLatency;
+    @Nonnull
     private final Thread thread;
+    @Nonnull
+    private volatile EngineClock clock = EngineClock.SYSTEM;
+    private volatile boolean jfrEnabled = false;
+    private volatile boolean stalled = false;
+    private volatile double load = 0;
+    private long sampledAt = 0;
+    private long sampledBusy = 0;
+    private volatile int sampledTasks = 0;
+    private volatile long frameBudget = Long.MAX_VALUE;
+    private volatile long frameNanos = DEFAULT_FRAME;
+    private long frameStart = 0;
+    private long frameUsed = 0;
+
+    /**
+     * A request to migrate a task to another core.
+     *
+     * @param handle Handle of the task to migrate
+     * @param target Core to migrate the task to
+     */
+    private record Migration(@Nonnull TaskHandle handle, @Nonnull SchedulerCore target) {}
+
+    /**
+     * An execution which is in progress.
+     *
+     * @param handle Handle of the executing task
+     * @param thread Thread executing the task
+     * @param start  Time at which the execution started in nanoseconds
+     */
+    record Execution(@Nonnull TaskHandle handle, @Nonnull Thread thread, long start) {}
+
+    /**
+     * Determines how the deadlines of a task are computed after its first execution.
+     */
+    enum Timing {
+        /**
+         * Each deadline is one interval after the time the previous execution was found to be due.
+         * This is the timing of repeating tasks.
+         */
+        INTERVAL,
+
+        /**
+         * Each deadline is one interval after the previous execution has finished,
+         * so the time an execution takes delays every later execution.
+         */
+        FIXED_DELAY,
+
+        /**
+         * Deadlines are spaced one interval apart from the first deadline, regardless of when executions happen.
+         * Deadlines which have already passed are skipped, and left to the task's overload policy.
+         */
+        FIXED_RATE,
+
+        /**
+         * The task is executed once, then unregistered.
+         */
+        ONCE
+    }
+
+    /**
+     * A registered task and its timing information.
+     * Entries are only mutated by the thread which currently owns them.
+     * Registration and cancellation only touch the concurrent inbox and map, and the handle's flag,
+     * so the core's heap never needs to be copied or locked.
+     */
+    private static final class Entry {
+        /**
+         * Creates a new entry.
+         *
+         * @param handle   Handle of this entry
+         * @param executor Executor to dispatch the task to, or {@code null} to execute it on the core
+         * @param timing   How the deadlines of this entry are computed
+         * @param previous Time of the last execution in nanoseconds
+         * @param delay    Nanoseconds until the first deadline
+         */
+        private Entry(
+                @Nonnull TaskHandle handle,
+                @Nullable Executor executor,
+                @Nonnull Timing timing,
+                long previous,
+                @Nonnegative long delay
+        ) {
+            this.handle = handle;
+            this.task = handle.getTask();
+            this.executor = executor;
+            this.timing = timing;
+            this.previous = previous;
+            this.deadline = previous + delay;
+        }
+
+        @Nonnull
+        private final TaskHandle handle;
+        @Nonnull
+        private final PreciseTask task;
+        @Nullable
+        private final Executor executor;
+        @Nonnull
+        private final Timing timing;
+        private long previous;
+        private long deadline;
+        private long slice;
+        private long frame;
+        private long used;
+        private boolean dispatched = false;
+        @Nullable
+        private volatile Thread runner = null;
+        private volatile long startedAt;
+        private volatile boolean reported = false;
+        private volatile boolean evacuated = false;
+
+        /**
+         * Checks if this entry should be dropped by its core,
+         * because its task was cancelled or has been moved to another core.
+         *
+         * @return {@code true} if this entry is retired
+         */
+        private boolean isRetired() {
+            return handle.cancelled || evacuated;
+        }
+
+        /**
+         * Records an execution, then computes the next deadline from the task's interval.
+         * The deadline is always in the future, so a task is never executed twice in the same pass.
+         *
+         * @param time  Time at which the execution was found to be due in nanoseconds
+         * @param clock Clock of the core, read for the time the execution finished
+         */
+        private void reschedule(long time, @Nonnull EngineClock clock) {
+            final long interval = intervalOf(task);
+            this.previous = time;
+
+            switch (timing) {
+                case FIXED_RATE -> this.deadline += ((time - deadline) / interval + 1) * interval;
+                case FIXED_DELAY -> this.deadline = clock.nanoTime() + interval;
+                default -> this.deadline = time + interval;
+            }
+        }
+
+        /**
+         * Moves this entry to a new time base, keeping the time remaining until its next deadline.
+         *
+         * @param time New time of the last execution in nanoseconds
+         */
+        private void restart(long time) {
+            this.deadline = time + (deadline - previous);
+            this.previous = time;
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package civitas.celestis.task.lifecycle;
+
+import javax.annotation.Nonnull;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <h2>SpinningWaitStrategy</h2>
+ * <p>
+ * Busy-spins until the deadline.
+ * This gives the lowest wake-up latency, but keeps a CPU fully occupied even when idle.
+ * Only use this for latency-critical cores on machines with spare processors.
+ * </p>
+ */
+public final class SpinningWaitStrategy implements WaitStrategy {
+    @Override
+    public void await(long deadline, @Nonnull BooleanSupplier signal) {
+        final Thread thread = Thread.currentThread();
+
+        while (deadline - System.nanoTime() > 0) {
+            if (signal.getAsBoolean() || thread.isInterrupted()) return;
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package civitas.celestis.task.lifecycle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * <h2>TaskExecutionEvent</h2>
+ * <p>A JFR event emitted for each task execution while recording is enabled on a {@link SchedulerCore}.</p>
+ */
+@Name("civitas.celestis.TaskExecution")
+@Label("Task Execution")
+@Category({"Odyssey", "Scheduler"})
+@Description("Execution of a task by a scheduler core")
+final class TaskExecutionEvent extends jdk.jfr.Event {
+    @Label("Core")
+    String core;
+
+    @Label("Task")
+    String task;
+
+    @Label("Jitter")
+    @Timespan(Timespan.NANOSECONDS)
+    long jitter;
+
+    @Label("Missed Deadlines")
+    long missed;
+
+    @Label("Dropped Executions")
+    long dropped;
+
+    @Label("Overrun")
+    @Description("Whether the execution took longer than the task's interval")
+    boolean overrun;
+}
@@ -0,0 +1,104 @@
+package civitas.celestis.task.lifecycle;
+
+import civitas.celestis.task.PreciseTask;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * <h2>TaskHandle</h2>
+ * <p>
+ * A handle to a task registered to a {@link Scheduler}.
+ * Cancelling a task through its handle only touches the core it is registered to.
+ * </p>
+ */
+public final class TaskHandle {
+    /**
+     * Creates a new task handle.
+     *
+     * @param task Task of this handle
+     * @param core Core the task is registered to
+     */
+    TaskHandle(@Nonnull PreciseTask task, @Nonnull SchedulerCore core) {
+        this.task = task;
+        this.core = core;
+        this.metrics = new TaskMetrics();
+    }
+
+    @Nonnull
+    private final PreciseTask task;
+    @Nonnull
+    private final TaskMetrics metrics;
+    @Nonnull
+    volatile SchedulerCore core;
+    volatile boolean cancelled = false;
+    private volatile double load = 0;
+    private long sampledAt = 0;
+    private long sampledTime = 0;
+
+    /**
+     * Gets the task of this handle.
+     *
+     * @return Task
+     */
+    @Nonnull
+    public PreciseTask getTask() {
+        return task;
+    }
+
+    /**
+     * Gets the metrics of the task of this handle.
+     *
+     * @return {@link TaskMetrics}
+     */
+    @Nonnull
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the fraction of time the task of this handle spent executing, as last sampled by its scheduler.
+     *
+     * @return Load of the task
+     */
+    @Nonnegative
+    public double getLoad() {
+        return load;
+    }
+
+    /**
+     * Samples the load of the task of this handle since the last sample.
+     *
+     * @param now Current time in nanoseconds
+     * @return Load of the task
+     */
+    @Nonnegative
+    double sampleLoad(long now) {
+        final long time = metrics.getExecutionTime().getSum();
+
+        if (sampledAt != 0 && now > sampledAt) {
+            load = Math.max(0, (double) (time - sampledTime) / (now - sampledAt));
+        }
+
+        sampledAt = now;
+        sampledTime = time;
+
+        return load;
+    }
+
+    /**
+     * Checks if the task of this handle has been unregistered.
+     *
+     * @return {@code true} if the task has been unregistered
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Unregisters the task of this handle.
+     */
+    public void cancel() {
+        core.unregisterTask(this);
+    }
+}
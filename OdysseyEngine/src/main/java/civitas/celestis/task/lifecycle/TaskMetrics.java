@@ -0,0 +1,131 @@
+package civitas.celestis.task.lifecycle;
+
+import civitas.celestis.util.Histogram;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>TaskMetrics</h2>
+ * <p>
+ * Timing statistics of a task, or of every task of a {@link SchedulerCore}.
+ * All times are in nanoseconds.
+ * </p>
+ */
+public final class TaskMetrics {
+    /**
+     * Creates a new empty set of metrics.
+     */
+    TaskMetrics() {
+        this.executionTime = new Histogram();
+        this.jitter = new Histogram();
+        this.missed = new LongAdder();
+        this.dropped = new LongAdder();
+        this.overruns = new LongAdder();
+    }
+
+    /**
+     * Records an execution.
+     *
+     * @param jitter        Nanoseconds between the deadline and the actual start
+     * @param executionTime Nanoseconds the execution took
+     * @param missed        Number of deadlines which passed without an execution
+     * @param dropped       Number of missed executions dropped by the overload policy
+     * @param overrun       Whether the execution took longer than the task's interval
+     */
+    void record(
+            long jitter,
+            @Nonnegative long executionTime,
+            @Nonnegative long missed,
+            @Nonnegative long dropped,
+            boolean overrun
+    ) {
+        this.executionTime.record(executionTime);
+        this.jitter.record(jitter);
+        if (missed > 0) this.missed.add(missed);
+        if (dropped > 0) this.dropped.add(dropped);
+        if (overrun) this.overruns.increment();
+    }
+
+    @Nonnull
+    private final Histogram executionTime;
+    @Nonnull
+    private final Histogram jitter;
+    @Nonnull
+    private final LongAdder missed;
+    @Nonnull
+    private final LongAdder dropped;
+    @Nonnull
+    private final LongAdder overruns;
+
+    /**
+     * Gets the histogram of execution times.
+     * The sum of this histogram is the total time spent executing.
+     *
+     * @return Execution time histogram
+     */
+    @Nonnull
+    public Histogram getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * Gets the histogram of start jitter, which is how late executions started compared to their deadline.
+     *
+     * @return Jitter histogram
+     */
+    @Nonnull
+    public Histogram getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Gets the number of deadlines which passed without an execution,
+     * because the previous execution started later than a whole interval.
+     *
+     * @return Number of missed deadlines
+     */
+    @Nonnegative
+    public long getMissed() {
+        return missed.sum();
+    }
+
+    /**
+     * Gets the number of missed executions which were dropped instead of being run,
+     * as decided by the task's {@link civitas.celestis.task.OverloadPolicy OverloadPolicy}.
+     *
+     * @return Number of dropped executions
+     */
+    @Nonnegative
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of executions which took longer than the task's interval.
+     *
+     * @return Number of overruns
+     */
+    @Nonnegative
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    /**
+     * Clears all recorded metrics.
+     */
+    public void reset() {
+        executionTime.reset();
+        jitter.reset();
+        missed.reset();
+        dropped.reset();
+        overruns.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskMetrics{executionTime=" + executionTime + ", jitter=" + jitter + ", missed=" + getMissed()
+                + ", dropped=" + getDropped() + ", overruns=" + getOverruns() + "}";
+    }
+}
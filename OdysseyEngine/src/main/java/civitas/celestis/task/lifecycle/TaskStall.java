@@ -0,0 +1,49 @@
+package civitas.celestis.task.lifecycle;
+
+import civitas.celestis.event.Event;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * <h2>TaskStall</h2>
+ * <p>
+ * A diagnostic report of a task execution which exceeded the timeout of a {@link Watchdog}.
+ * This is an {@link Event}, and the engine's watchdog calls it on the engine's event manager.
+ * </p>
+ *
+ * @param handle    Handle of the stalled task
+ * @param core      Name of the core the task is registered to
+ * @param thread    Name of the thread executing the task
+ * @param duration  Nanoseconds the execution had been running for when it was detected
+ * @param samples   Stack traces of the executing thread, sampled in succession
+ * @param blocking  Whether the execution blocks its core, because it runs on the core's own thread
+ * @param evacuated Number of other tasks moved off the blocked core
+ */
+public record TaskStall(
+        @Nonnull TaskHandle handle,
+        @Nonnull String core,
+        @Nonnull String thread,
+        @Nonnegative long duration,
+        @Nonnull List<StackTraceElement[]> samples,
+        boolean blocking,
+        @Nonnegative int evacuated
+) implements Event {
+    /**
+     * Formats the last stack sample of this stall.
+     *
+     * @return Stack trace, one frame per line
+     */
+    @Nonnull
+    public String getStackTrace() {
+        final StringBuilder builder = new StringBuilder();
+        if (samples.isEmpty()) return "";
+
+        for (StackTraceElement element : samples.get(samples.size() - 1)) {
+            builder.append("\tat ").append(element).append('\n');
+        }
+
+        return builder.toString();
+    }
+}
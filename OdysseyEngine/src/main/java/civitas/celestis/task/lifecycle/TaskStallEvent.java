@@ -0,0 +1,39 @@
+package civitas.celestis.task.lifecycle;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * <h2>TaskStallEvent</h2>
+ * <p>A JFR event emitted by a {@link Watchdog} for each stalled task execution.</p>
+ */
+@Name("civitas.celestis.TaskStall")
+@Label("Task Stall")
+@Category({"Odyssey", "Scheduler"})
+@Description("Task execution which exceeded the watchdog timeout")
+final class TaskStallEvent extends jdk.jfr.Event {
+    @Label("Core")
+    String core;
+
+    @Label("Task")
+    String task;
+
+    @Label("Thread")
+    String thread;
+
+    @Label("Run Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long runTime;
+
+    @Label("Stack Trace")
+    String stackTrace;
+
+    @Label("Blocking")
+    boolean blocking;
+
+    @Label("Evacuated Tasks")
+    int evacuated;
+}
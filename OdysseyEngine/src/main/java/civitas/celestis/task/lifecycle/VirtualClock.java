@@ -0,0 +1,130 @@
+package civitas.celestis.task.lifecycle;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <h2>VirtualClock</h2>
+ * <p>
+ * A clock for deterministic simulation.
+ * Virtual time does not pass on its own. Once every core using this clock is waiting,
+ * no dispatched task is running, and no core has new work, time jumps straight to the earliest deadline.
+ * Simulations therefore run as fast as the CPU allows, and every task sees the same deltas on every run.
+ * </p>
+ * <p>
+ * A core is counted from the moment this clock is set on it, so cores which have not started yet
+ * hold virtual time in place until they do.
+ * </p>
+ * <p>
+ * A core whose thread blocks on the work of another core is not counted as waiting, so virtual time
+ * stops while it is blocked. If the other core is itself waiting for a later deadline, neither can progress
+ * and the simulation deadlocks. Tasks run under a virtual clock must therefore not block on other cores,
+ * for example by joining the future of
+ * {@link civitas.celestis.event.lifecycle.EventManager#callAsync(civitas.celestis.event.Event) callAsync},
+ * or by calling events while the event queue is full under {@link civitas.celestis.event.OverflowPolicy#BLOCK}.
+ * </p>
+ */
+public final class VirtualClock implements EngineClock {
+    /**
+     * Creates a new virtual clock starting at zero.
+     */
+    public VirtualClock() {
+        this(0);
+    }
+
+    /**
+     * Creates a new virtual clock.
+     *
+     * @param time Initial time in nanoseconds
+     */
+    public VirtualClock(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public long nanoTime() {
+        return time;
+    }
+
+    @Override
+    public void await(long deadline, @Nonnull BooleanSupplier signal, @Nonnull WaitStrategy strategy) {
+        synchronized (this) {
+            final Waiter waiter = new Waiter(deadline, signal);
+            waiters.add(waiter);
+
+            try {
+                while (time < deadline && !signal.getAsBoolean()) {
+                    advance();
+                    if (time >= deadline) break;
+
+                    // Signals are set without notifying this clock, so poll them
+                    wait(1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiters.remove(waiter);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void register() {
+        participants++;
+    }
+
+    @Override
+    public synchronized void deregister() {
+        participants--;
+        advance();
+    }
+
+    @Override
+    public synchronized void begin() {
+        running++;
+    }
+
+    @Override
+    public synchronized void end() {
+        running--;
+        advance();
+    }
+
+    /**
+     * Advances time to the earliest deadline if every participant is idle.
+     * Must be called while holding this clock's monitor.
+     */
+    private void advance() {
+        if (running > 0 || waiters.size() < participants || waiters.isEmpty()) return;
+
+        long next = Long.MAX_VALUE;
+        for (Waiter w : waiters) {
+            if (w.signal().getAsBoolean()) return;
+            next = Math.min(next, w.deadline());
+        }
+
+        if (next > time) {
+            time = next;
+            notifyAll();
+        }
+    }
+
+    private volatile long time;
+    @Nonnegative
+    private int participants = 0;
+    @Nonnegative
+    private int running = 0;
+    @Nonnull
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    /**
+     * A core waiting for this clock.
+     *
+     * @param deadline Time the core is waiting for
+     * @param signal   Condition which becomes {@code true} when the core has new work
+     */
+    private record Waiter(long deadline, @Nonnull BooleanSupplier signal) {}
+}
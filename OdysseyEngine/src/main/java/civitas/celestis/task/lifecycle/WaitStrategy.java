@@ -0,0 +1,27 @@
+package civitas.celestis.task.lifecycle;
+
+import javax.annotation.Nonnull;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <h2>WaitStrategy</h2>
+ * <p>
+ * Determines how a {@link SchedulerCore} waits between passes.
+ * Strategies trade idle CPU usage for wake-up precision.
+ * </p>
+ * <ul>
+ *     <li>{@link ParkingWaitStrategy}: Blocks the thread. No idle CPU usage, but wakes up late by the OS timer slack.</li>
+ *     <li>{@link HybridWaitStrategy}: Parks, then yields, then spins just before the deadline.</li>
+ *     <li>{@link SpinningWaitStrategy}: Spins for the whole wait. Lowest latency, but occupies a whole CPU.</li>
+ * </ul>
+ */
+public interface WaitStrategy {
+    /**
+     * Waits until the deadline has passed, the signal becomes {@code true}, or the thread is interrupted.
+     * Implementations may return early, as the core re-evaluates its deadlines after every wait.
+     *
+     * @param deadline Time to wait until in nanoseconds
+     * @param signal   Condition which becomes {@code true} when the core has new work
+     */
+    void await(long deadline, @Nonnull BooleanSupplier signal);
+}
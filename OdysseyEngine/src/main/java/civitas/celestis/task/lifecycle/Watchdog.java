@@ -0,0 +1,297 @@
+package civitas.celestis.task.lifecycle;
+
+import org.joda.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * <h2>Watchdog</h2>
+ * <p>
+ * Detects task executions of a {@link Scheduler} which run for longer than a timeout,
+ * such as tasks which are deadlocked or stuck in an infinite loop.
+ * Cores outside the scheduler, such as those of the event and world managers,
+ * can be {@link #watch(SchedulerCore) watched} too.
+ * The watchdog checks every quarter of its timeout on its own thread, so stalls are reported
+ * at most a quarter of the timeout late.
+ * </p>
+ * <p>
+ * For each stalled execution, the stack of the executing thread is sampled several times,
+ * and a {@link TaskStall} is sent to every listener and emitted as a JFR event.
+ * If evacuation is enabled and the execution blocks one of the scheduler's cores, the core's other tasks
+ * are spread over the scheduler's healthy cores. Other watched cores are never evacuated.
+ * </p>
+ * <p>
+ * A core whose thread is blocked by a stalled execution is marked as stalled until the execution finishes.
+ * The scheduler neither places new tasks on a stalled core nor migrates tasks to it.
+ * </p>
+ * <p>The watchdog is disabled until a timeout is set.</p>
+ */
+public final class Watchdog {
+    /**
+     * Creates a new watchdog.
+     *
+     * @param cores Cores of the scheduler, which are watched and can be evacuated
+     */
+    Watchdog(@Nonnull SchedulerCore[] cores) {
+        this.cores = cores;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.thread = new Thread(this::run, "Scheduler-Watchdog");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts this watchdog.
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops this watchdog.
+     */
+    void stop() {
+        thread.interrupt();
+    }
+
+    /**
+     * Watches a core which does not belong to the scheduler.
+     * Watching a core which is already watched has no effect.
+     *
+     * @param core Core to watch
+     */
+    public void watch(@Nonnull SchedulerCore core) {
+        if (Arrays.asList(cores).contains(core)) return;
+        watched.addIfAbsent(core);
+    }
+
+    /**
+     * Stops watching a core which was watched with {@link #watch(SchedulerCore)}.
+     *
+     * @param core Core to stop watching
+     */
+    public void unwatch(@Nonnull SchedulerCore core) {
+        watched.remove(core);
+    }
+
+    /**
+     * Gets the run time above which an execution is considered stalled.
+     *
+     * @return Timeout, or {@code null} if this watchdog is disabled
+     */
+    @Nullable
+    public Duration getTimeout() {
+        final long t = timeout;
+        return t == 0 ? null : new Duration(t / 1_000_000);
+    }
+
+    /**
+     * Sets the run time above which an execution is considered stalled.
+     *
+     * @param timeout Timeout, or {@code null} to disable this watchdog
+     */
+    public void setTimeout(@Nullable Duration timeout) {
+        this.timeout = timeout == null ? 0 : Math.max(timeout.getMillis(), 1) * 1_000_000;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Checks if the other tasks of a blocked core are moved to healthy cores.
+     *
+     * @return {@code true} if evacuation is enabled
+     */
+    public boolean isEvacuating() {
+        return evacuating;
+    }
+
+    /**
+     * Sets whether the other tasks of a blocked core are moved to healthy cores.
+     *
+     * @param evacuating {@code true} to enable evacuation
+     */
+    public void setEvacuating(boolean evacuating) {
+        this.evacuating = evacuating;
+    }
+
+    /**
+     * Adds a listener which receives every detected stall.
+     * Listeners are called on the watchdog's thread, and should not block.
+     *
+     * @param listener Listener to add
+     */
+    public void addListener(@Nonnull Consumer<? super TaskStall> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener from this watchdog.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(@Nonnull Consumer<? super TaskStall> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The main loop of this watchdog.
+     */
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final long t = timeout;
+
+            if (t == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            LockSupport.parkNanos(this, Math.max(t / 4, MIN_PERIOD));
+            check(t);
+        }
+    }
+
+    /**
+     * Checks every core for stalled executions.
+     *
+     * @param timeout Timeout in nanoseconds
+     */
+    private void check(@Nonnegative long timeout) {
+        final long now = System.nanoTime();
+        final List<SchedulerCore> healthy = new ArrayList<>(Arrays.asList(cores));
+        final List<Stalled> stalled = new ArrayList<>();
+
+        final List<SchedulerCore> all = new ArrayList<>(healthy);
+        all.addAll(watched);
+
+        for (SchedulerCore core : all) {
+            for (SchedulerCore.Execution e : core.getStalledExecutions(now, timeout)) {
+                final boolean blocking = core.isCoreThread(e.thread());
+                if (blocking) core.markStalled(e);
+
+                stalled.add(new Stalled(core, e, blocking));
+            }
+        }
+
+        // Cores reported in earlier checks may still be stalled
+        healthy.removeIf(SchedulerCore::isStalled);
+
+        for (Stalled s : stalled) {
+            final List<StackTraceElement[]> samples = sample(s.execution().thread());
+            final boolean owned = Arrays.asList(cores).contains(s.core());
+
+            final int evacuated = s.blocking() && owned && evacuating && !healthy.isEmpty()
+                    ? s.core().evacuate(() -> healthy.stream().min(BY_TASKS).orElse(null))
+                    : 0;
+
+            publish(new TaskStall(
+                    s.execution().handle(),
+                    s.core().getName(),
+                    s.execution().thread().getName(),
+                    System.nanoTime() - s.execution().start(),
+                    samples,
+                    s.blocking(),
+                    evacuated
+            ));
+        }
+    }
+
+    /**
+     * Samples the stack of a thread several times in succession.
+     * Samples which differ indicate a loop, while identical samples indicate a blocked thread.
+     *
+     * @param t Thread to sample
+     * @return List of stack traces
+     */
+    @Nonnull
+    private static List<StackTraceElement[]> sample(@Nonnull Thread t) {
+        final List<StackTraceElement[]> samples = new ArrayList<>(SAMPLES);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            if (i > 0) LockSupport.parkNanos(SAMPLE_INTERVAL);
+            samples.add(t.getStackTrace());
+        }
+
+        return samples;
+    }
+
+    /**
+     * Sends a stall to every listener, and emits it as a JFR event.
+     *
+     * @param stall Stall to publish
+     */
+    private void publish(@Nonnull TaskStall stall) {
+        for (Consumer<? super TaskStall> listener : listeners) {
+            try {
+                listener.accept(stall);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        final TaskStallEvent event = new TaskStallEvent();
+
+        if (event.shouldCommit()) {
+            event.core = stall.core();
+            event.task = stall.handle().getTask().toString();
+            event.thread = stall.thread();
+            event.runTime = stall.duration();
+            event.stackTrace = stall.getStackTrace();
+            event.blocking = stall.blocking();
+            event.evacuated = stall.evacuated();
+            event.commit();
+        }
+    }
+
+    /**
+     * The number of stack samples taken per stall.
+     */
+    private static final int SAMPLES = 3;
+
+    /**
+     * The time between two stack samples in nanoseconds.
+     */
+    private static final long SAMPLE_INTERVAL = 1_000_000;
+
+    /**
+     * The shortest time between two checks in nanoseconds.
+     */
+    private static final long MIN_PERIOD = 250_000;
+
+    /**
+     * Orders cores by number of tasks.
+     * Sampled loads are not used, as they are not updated while tasks are being moved.
+     */
+    private static final Comparator<SchedulerCore> BY_TASKS = Comparator.comparingInt(SchedulerCore::getTaskCount);
+
+    @Nonnull
+    private final SchedulerCore[] cores;
+    @Nonnull
+    private final CopyOnWriteArrayList<SchedulerCore> watched = new CopyOnWriteArrayList<>();
+    @Nonnull
+    private final List<Consumer<? super TaskStall>> listeners;
+    @Nonnull
+    private final Thread thread;
+    @Nonnegative
+    private volatile long timeout = 0;
+    private volatile boolean evacuating = false;
+
+    /**
+     * A stalled execution found during a check.
+     *
+     * @param core      Core the execution belongs to
+     * @param execution Stalled execution
+     * @param blocking  Whether the execution blocks its core
+     */
+    private record Stalled(
+            @Nonnull SchedulerCore core,
+            @Nonnull SchedulerCore.Execution execution,
+            boolean blocking
+    ) {}
+}
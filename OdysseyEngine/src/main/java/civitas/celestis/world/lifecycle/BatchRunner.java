@@ -0,0 +1,116 @@
+package civitas.celestis.world.lifecycle;
+
+import civitas.celestis.world.World;
+import org.joda.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * <h2>BatchRunner</h2>
+ * <p>
+ * Simulates many independent worlds in parallel, without rendering or real-time pacing.
+ * Each world is created, ticked a fixed number of times with a fixed timestep,
+ * reduced to a result, then discarded. Results are handed to a consumer as soon as each world finishes,
+ * so only the worlds currently being simulated are kept in memory.
+ * </p>
+ */
+public class BatchRunner {
+    /**
+     * Creates a new batch runner which simulates worlds on the common pool.
+     */
+    public BatchRunner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new batch runner.
+     *
+     * @param pool Pool to simulate worlds on
+     */
+    public BatchRunner(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Simulates a batch of worlds.
+     * The consumer is called on the pool's threads, in the order the worlds finish.
+     *
+     * @param count    Number of worlds to simulate
+     * @param factory  Function creating the world of each index
+     * @param timestep Fixed timestep of every tick
+     * @param ticks    Number of ticks to simulate each world for
+     * @param result   Function reducing a finished world to its result
+     * @param consumer Consumer receiving the index and result of each finished world
+     * @param <W>      Type of world
+     * @param <R>      Type of result
+     * @return Future which completes once every world has finished, or exceptionally if any world failed
+     */
+    @Nonnull
+    public <W extends World, R> CompletableFuture<Void> run(
+            @Nonnegative int count,
+            @Nonnull IntFunction<? extends W> factory,
+            @Nonnull Duration timestep,
+            @Nonnegative long ticks,
+            @Nonnull Function<? super W, ? extends R> result,
+            @Nonnull BiConsumer<Integer, ? super R> consumer
+    ) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+
+            futures.add(CompletableFuture.runAsync(() -> {
+                final W world = factory.apply(index);
+                for (long t = 0; t < ticks; t++) world.tick(timestep);
+
+                consumer.accept(index, result.apply(world));
+            }, pool));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Simulates a batch of worlds, and waits for every world to finish.
+     *
+     * @param count    Number of worlds to simulate
+     * @param factory  Function creating the world of each index
+     * @param timestep Fixed timestep of every tick
+     * @param ticks    Number of ticks to simulate each world for
+     * @param result   Function reducing a finished world to its result
+     * @param <W>      Type of world
+     * @param <R>      Type of result
+     * @return List of results, in the order of the worlds' indices
+     */
+    @Nonnull
+    public <W extends World, R> List<R> runAll(
+            @Nonnegative int count,
+            @Nonnull IntFunction<? extends W> factory,
+            @Nonnull Duration timestep,
+            @Nonnegative long ticks,
+            @Nonnull Function<? super W, ? extends R> result
+    ) {
+        final List<R> results = new ArrayList<>(Collections.nCopies(count, null));
+        run(count, factory, timestep, ticks, result, (i, r) -> {
+            synchronized (results) {
+                results.set(i, r);
+            }
+        }).join();
+
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    @Nonnull
+    private final ForkJoinPool pool;
+}
@@ -1,17 +1,33 @@
 package civitas.celestis.world.lifecycle;
 
+import civitas.celestis.math.vector.Vector3;
+import civitas.celestis.object.BaseObject;
+import civitas.celestis.task.PreciseTask;
+import civitas.celestis.task.lifecycle.EngineClock;
 import civitas.celestis.task.lifecycle.SchedulerCore;
+import civitas.celestis.task.lifecycle.Watchdog;
 import civitas.celestis.world.World;
+import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * <h2>WorldManager</h2>
  * <p>Handles the lifecycle of worlds.</p>
+ * <p>
+ * By default, worlds are ticked with the variable delta of the manager's core.
+ * When a fixed timestep is set, elapsed time is accumulated and worlds are ticked in steps of exactly
+ * the timestep. At most {@link #getMaxSubsteps()} steps are taken per pass, and any time beyond that is dropped,
+ * so the simulation slows down under overload instead of taking huge steps.
+ * The remaining fraction of a step is exposed as an interpolation alpha for rendering.
+ * </p>
  */
 public class WorldManager {
     /**
@@ -28,6 +44,25 @@ public class WorldManager {
         core.stop();
     }
 
+    /**
+     * Sets the clock of this world manager.
+     *
+     * @param clock Clock to use
+     * @throws IllegalStateException When this world manager has already been started
+     */
+    public void setClock(@Nonnull EngineClock clock) throws IllegalStateException {
+        core.setClock(clock);
+    }
+
+    /**
+     * Attaches a watchdog to the core of this world manager, so that stalled ticks are detected.
+     *
+     * @param watchdog Watchdog to attach
+     */
+    public void attach(@Nonnull Watchdog watchdog) {
+        watchdog.watch(core);
+    }
+
     /**
      * Gets a list of all worlds in this manager.
      *
@@ -87,13 +122,155 @@ public class WorldManager {
         worlds.remove(world);
     }
 
+    //
+    // Timestep
+    //
+
+    /**
+     * Gets the fixed timestep of this manager.
+     *
+     * @return Fixed timestep, or {@code null} if worlds are ticked with a variable delta
+     */
+    @Nullable
+    public Duration getTimestep() {
+        return timestep;
+    }
+
+    /**
+     * Sets the fixed timestep of this manager.
+     *
+     * @param timestep Fixed timestep, or {@code null} to tick worlds with a variable delta
+     * @throws IllegalArgumentException When the timestep is not positive
+     */
+    public void setTimestep(@Nullable Duration timestep) throws IllegalArgumentException {
+        if (timestep != null && timestep.getMillis() <= 0) {
+            throw new IllegalArgumentException("Timestep must be positive.");
+        }
+
+        this.timestep = timestep;
+    }
+
+    /**
+     * Gets the maximum number of fixed steps taken per pass.
+     *
+     * @return Maximum number of substeps
+     */
+    @Nonnegative
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    /**
+     * Sets the maximum number of fixed steps taken per pass.
+     *
+     * @param maxSubsteps Maximum number of substeps
+     * @throws IllegalArgumentException When {@code maxSubsteps} is not positive
+     */
+    public void setMaxSubsteps(@Nonnegative int maxSubsteps) throws IllegalArgumentException {
+        if (maxSubsteps <= 0) {
+            throw new IllegalArgumentException("Maximum substeps must be positive.");
+        }
+
+        this.maxSubsteps = maxSubsteps;
+    }
+
+    /**
+     * Gets the interpolation alpha between the previous and the current simulation state.
+     * This is always {@code 1} when ticking with a variable delta.
+     *
+     * @return Alpha in the range of {@code [0, 1)}, or {@code 1}
+     */
+    public double getAlpha() {
+        return interpolation.alpha();
+    }
+
+    /**
+     * Gets the location of an object, blended between the last two simulation states by {@link #getAlpha()}.
+     *
+     * @param object Object to get the location of
+     * @return Interpolated location
+     */
+    @Nonnull
+    public Vector3 getInterpolatedLocation(@Nonnull BaseObject object) {
+        final Interpolation i = interpolation;
+        final Vector3 current = object.getLocation();
+        final Vector3 previous = i.previousLocations().get(object.getUniqueId());
+
+        if (previous == null) return current;
+        return previous.add(current.subtract(previous).multiply(i.alpha()));
+    }
+
+    /**
+     * Ticks every world of this manager.
+     *
+     * @param delta Nanoseconds between the last pass and now
+     */
+    private void tick(long delta) {
+        final Duration step = timestep;
+
+        // Variable timestep
+        if (step == null) {
+            interpolation = Interpolation.NONE;
+            accumulator = 0;
+            getWorlds().forEach(w -> w.tick(new Duration(delta / 1_000_000)));
+            return;
+        }
+
+        // Fixed timestep
+        final long stepNanos = step.getMillis() * 1_000_000;
+        Map<UUID, Vector3> previousLocations = interpolation.previousLocations();
+        accumulator += delta;
+
+        for (int i = 0; accumulator >= stepNanos; i++) {
+            if (i == maxSubsteps) {
+                // Overloaded, drop the time which cannot be simulated
+                accumulator %= stepNanos;
+                break;
+            }
+
+            final List<World> worlds = getWorlds();
+
+            // Keep the previous state for interpolation in a new map, as the current one may be being read
+            final Map<UUID, Vector3> locations = new HashMap<>();
+            worlds.forEach(w -> w.getObjects().forEach(o -> locations.put(o.getUniqueId(), o.getLocation())));
+            previousLocations = locations;
+
+            worlds.forEach(w -> w.tick(step));
+            accumulator -= stepNanos;
+        }
+
+        interpolation = new Interpolation(previousLocations, (double) accumulator / stepNanos);
+    }
+
     private final List<World> worlds = new ArrayList<>();
     private final SchedulerCore core = new SchedulerCore("WorldManager-1", 0);
 
+    @Nullable
+    private volatile Duration timestep = null;
+    @Nonnegative
+    private volatile int maxSubsteps = 5;
+    @Nonnull
+    private volatile Interpolation interpolation = Interpolation.NONE;
+    private long accumulator = 0;
+
     /**
      * Default constructor.
      */
     public WorldManager() {
-        core.registerTask(delta -> getWorlds().forEach(w -> w.tick(delta)));
+        core.registerTask((PreciseTask) this::tick);
+    }
+
+    /**
+     * The state used to interpolate rendering, published as a whole so that readers never see
+     * the previous locations of one pass with the alpha of another.
+     *
+     * @param previousLocations Locations of every object before the last step, which is never modified
+     * @param alpha             Interpolation alpha
+     */
+    private record Interpolation(@Nonnull Map<UUID, Vector3> previousLocations, double alpha) {
+        /**
+         * The state of a manager ticking with a variable delta, which does not interpolate.
+         */
+        private static final Interpolation NONE = new Interpolation(Map.of(), 1);
     }
 }
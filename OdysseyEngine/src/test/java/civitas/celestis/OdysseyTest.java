@@ -39,7 +39,7 @@ public class OdysseyTest {
         Odyssey.getWorldManager().addWorld(world);
 
         final JFrame frame = new JFrame("Test");
-        final Viewport viewport = new Viewport(world);
+        final Viewport viewport = new Viewport(world, Odyssey.getWorldManager());
 
         frame.add(viewport);
 
@@ -0,0 +1,146 @@
+package civitas.celestis.util;
+
+import javax.annotation.Nonnegative;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>Histogram</h2>
+ * <p>
+ * A thread-safe histogram of non-negative values with power-of-two buckets.
+ * Recording a value is wait-free and does not allocate, which makes it suitable for hot loops.
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to a factor of two.
+ * </p>
+ */
+public final class Histogram {
+    /**
+     * Creates a new empty histogram.
+     */
+    public Histogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Records a value to this histogram. Negative values are recorded as zero.
+     *
+     * @param value Value to record
+     */
+    public void record(long value) {
+        final long v = Math.max(value, 0);
+
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return Number of values
+     */
+    @Nonnegative
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all recorded values.
+     *
+     * @return Sum of values
+     */
+    @Nonnegative
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return Maximum value, or {@code 0} if nothing has been recorded
+     */
+    @Nonnegative
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of all recorded values.
+     *
+     * @return Mean value, or {@code 0} if nothing has been recorded
+     */
+    @Nonnegative
+    public double getMean() {
+        final long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * Gets an approximate percentile of the recorded values.
+     *
+     * @param percentile Percentile in the range of {@code [0, 100]}
+     * @return Upper bound of the bucket containing the percentile, or {@code 0} if nothing has been recorded
+     * @throws IllegalArgumentException When the percentile is out of range
+     */
+    @Nonnegative
+    public long getPercentile(double percentile) throws IllegalArgumentException {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be in the range of [0, 100].");
+        }
+
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += buckets.get(i);
+        if (total == 0) return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Clears all recorded values.
+     * Values recorded concurrently with a reset may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50)
+                + ", p99=" + getPercentile(99) + ", max=" + getMax() + "}";
+    }
+
+    /**
+     * Gets the largest value which falls into a bucket.
+     *
+     * @param bucket Index of bucket
+     * @return Upper bound of bucket
+     */
+    private static long upperBound(int bucket) {
+        return (1L << bucket) - 1;
+    }
+
+    /**
+     * Bucket {@code 0} holds zero, and bucket {@code i} holds values in the range of {@code [2^(i-1), 2^i)}.
+     */
+    private static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+}